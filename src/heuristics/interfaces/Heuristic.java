@@ -0,0 +1,21 @@
+package heuristics.interfaces;
+
+import heuristics.ziround.CancellationToken;
+import heuristics.ziround.HeuristicResult;
+
+public interface Heuristic {
+
+    /**
+     * Applies its heuristic algorithm
+     *
+     * @return The outcome of the run, implementations narrow the exceptions they can throw
+     */
+    HeuristicResult applyHeuristic() throws Exception;
+
+    /**
+     * @param cancellationToken A token the heuristic polls to stop early, {@code null} to disable it
+     */
+    void setCancellationToken(CancellationToken cancellationToken);
+
+    void setHeuristicListener(HeuristicListener listener);
+}
@@ -1,30 +1,37 @@
 package heuristics.test;
 
+import heuristics.ziround.CplexPool;
+import heuristics.ziround.FeasibilityVerifier;
+import heuristics.ziround.FixAndResolve;
+import heuristics.ziround.HeuristicResult;
 import heuristics.ziround.Model;
 import heuristics.ziround.NumVariable;
 import heuristics.ziround.ZiRound;
 import ilog.concert.IloException;
-import ilog.cplex.IloCplex;
 
 import javax.management.InvalidAttributeValueException;
 import java.util.List;
 
 public class AlgorithmRunTest {
-    public static void main(String[] args) throws IloException, NumVariable.ValueOutOfBoundsException, InvalidAttributeValueException {
+    public static void main(String[] args) throws IloException, NumVariable.ValueOutOfBoundsException, InvalidAttributeValueException, InterruptedException {
         List<String> fileModels = CplexUtilsTest.data();
 
-        IloCplex iloCplex = new IloCplex();
-        iloCplex.importModel(fileModels.get(0));
-        Model model = new Model(iloCplex);
+        try (CplexPool pool = new CplexPool(1);
+             Model model = Model.fromFile(pool, fileModels.get(0))) {
+            run(model);
+        }
+    }
+
+    private static void run(Model model) throws IloException, NumVariable.ValueOutOfBoundsException, InvalidAttributeValueException {
         double[] intSolutions = model.getSolutions();
         double[] relaxedSolutions = model.getRelaxedSolutions();
 
         ZiRound ziRound = new ZiRound(model, 00.1);
         ziRound.setIntegerSolutions(model.getIntegerConstraints());
 
+        HeuristicResult result = null;
         try {
-            iloCplex.getStatus();
-            ziRound.applyHeuristic();
+            result = ziRound.applyHeuristic();
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -33,7 +40,11 @@ public class AlgorithmRunTest {
             System.out.println(solutions[i].getType() + " " + solutions[i].getValue() + " => [" + solutions[i].getLowBound() + ", " + solutions[i].getUpBound() + "]");
             System.out.println("Original Value: " + intSolutions[i] + " | Relaxed: " + relaxedSolutions[i]);
         }
-
-
+        if (result != null) {
+            System.out.println(new FeasibilityVerifier(model.snapshot()).verify(result.getValues()));
+            HeuristicResult repaired = new FixAndResolve(model, ziRound.getThreshold(), null).apply(result.getValues());
+            System.out.println("Fix and resolve: " + repaired.getStatus() + " after " + repaired.getSweeps() + " LP solves");
+            System.out.println(new FeasibilityVerifier(model.snapshot()).verify(repaired.getValues()));
+        }
     }
 }
@@ -0,0 +1,73 @@
+package heuristics.test;
+
+import heuristics.ziround.BatchRunner;
+import heuristics.ziround.MetricsWriter;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link BatchRunner} and {@link MetricsWriter} that don't need a solver
+ */
+@RunWith(JUnit4.class)
+public class BatchRunnerTest {
+
+    @Test
+    public void expandsInputs() throws Exception {
+        Path dir = Files.createTempDirectory("ziround");
+        Path a = Files.createFile(dir.resolve("a.mps"));
+        Path b = Files.createFile(dir.resolve("b.lp"));
+        Files.createFile(dir.resolve("notes.txt"));
+        Path sub = Files.createDirectory(dir.resolve("sub"));
+        Path c = Files.createFile(sub.resolve("c.mps"));
+        try {
+            List<Path> fromDir = BatchRunner.expandInputs(List.of(dir.toString()));
+            assertEquals(List.of(a, b), fromDir);
+
+            List<Path> fromGlob = BatchRunner.expandInputs(List.of(dir + "/**.mps", a.toString()));
+            assertEquals(List.of(a, c), fromGlob);
+        } finally {
+            for (Path path : new Path[]{c, sub, a, b, dir.resolve("notes.txt"), dir})
+                Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void writesLines() throws Exception {
+        Path csv = Files.createTempFile("ziround", ".csv");
+        Path jsonl = Files.createTempFile("ziround", ".jsonl");
+        try {
+            MetricsWriter.Metrics metrics = new MetricsWriter.Metrics("models/a,b.mps");
+            metrics.setStatus("SOLVED");
+            metrics.setSweeps(3);
+            metrics.setFeasible(true);
+            metrics.setObjective(2.5);
+            for (Path path : new Path[]{csv, jsonl}) {
+                try (MetricsWriter writer = new MetricsWriter(path, MetricsWriter.formatOf(path))) {
+                    writer.write(metrics);
+                    //Flushed line by line, readable before the writer is closed
+                    assertFalse(Files.readAllLines(path).isEmpty());
+                }
+            }
+
+            List<String> lines = Files.readAllLines(csv);
+            assertEquals(2, lines.size());
+            assertTrue(lines.get(0).startsWith("instance,status,loadMillis"));
+            assertEquals("\"models/a,b.mps\",SOLVED,,,,3,,true,2.5,", lines.get(1));
+
+            lines = Files.readAllLines(jsonl);
+            assertEquals(1, lines.size());
+            assertTrue(lines.get(0).startsWith("{\"instance\":\"models/a,b.mps\",\"status\":\"SOLVED\",\"loadMillis\":null"));
+            assertTrue(lines.get(0).endsWith("\"feasible\":true,\"objective\":2.5,\"error\":null}"));
+        } finally {
+            Files.deleteIfExists(csv);
+            Files.deleteIfExists(jsonl);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package heuristics.test;
+
+import heuristics.ziround.*;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link BoundPropagator} and of its use in {@link ZiRound}
+ */
+@RunWith(JUnit4.class)
+public class BoundPropagatorTest {
+    private static final double DELTA = 1e-9;
+
+    /**
+     * x0 + x1 <= 3
+     * 0 <= x <= 5, x INT
+     */
+    private static ModelSnapshot packingModel() {
+        return new ModelSnapshot(new double[]{0, 0}, new double[]{5, 5}, new boolean[]{true, true},
+                new double[]{-1, -1}, Model.ObjType.MIN,
+                new double[]{Double.NEGATIVE_INFINITY}, new double[]{3},
+                new int[]{0, 2}, new int[]{0, 1}, new double[]{1, 1});
+    }
+
+    /**
+     * 2 x0 + 2 x1 = 1
+     * 0 <= x <= 1, x INT
+     */
+    private static ModelSnapshot parityModel() {
+        return new ModelSnapshot(new double[]{0, 0}, new double[]{1, 1}, new boolean[]{true, true},
+                new double[]{1, 1}, Model.ObjType.MIN,
+                new double[]{1}, new double[]{1},
+                new int[]{0, 2}, new int[]{0, 1}, new double[]{2, 2});
+    }
+
+    @Test
+    public void tightensOnFix() {
+        BoundPropagator propagator = new BoundPropagator(packingModel());
+        assertTrue(propagator.propagate());
+        assertEquals(3, propagator.getUB()[0], DELTA);
+        assertTrue(propagator.fix(0, 2));
+        assertEquals(1, propagator.getUB()[1], DELTA);
+        assertEquals(0, propagator.getLB()[1], DELTA);
+        assertFalse(propagator.fix(1, 2));
+    }
+
+    @Test
+    public void detectsInfeasibleRounding() throws Exception {
+        ZiRound ziRound = new ZiRound(parityModel(), new double[]{0.25, 0.25}, ZiRoundTest.TEST_THRESHOLD);
+        ziRound.setPropagation(true);
+        HeuristicResult result = ziRound.applyHeuristic();
+        assertEquals(HeuristicResult.Status.INFEASIBLE, result.getStatus());
+        assertEquals(0, result.getSweeps());
+    }
+
+    @Test
+    public void propagationKeepsRoundingFeasible() throws Exception {
+        ModelSnapshot snapshot = packingModel();
+        ZiRound ziRound = new ZiRound(snapshot, new double[]{1.5, 1.5}, ZiRoundTest.TEST_THRESHOLD);
+        ziRound.setPropagation(true);
+        HeuristicResult result = ziRound.applyHeuristic();
+        assertTrue(result.isSolved());
+        assertTrue(new FeasibilityVerifier(snapshot).verify(result.getValues()).isFeasible());
+    }
+}
@@ -0,0 +1,56 @@
+package heuristics.test;
+
+import heuristics.ziround.CallbackPolicy;
+import heuristics.ziround.Model;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link CallbackPolicy}, the rules of {@link heuristics.ziround.ZiRoundCallback} without CPLEX
+ */
+@RunWith(JUnit4.class)
+public class CallbackPolicyTest {
+
+    @Test
+    public void oncePerNode() {
+        CallbackPolicy policy = new CallbackPolicy(Model.ObjType.MIN);
+        policy.setNodeFrequency(5);
+        //The root is seen after every round of cuts
+        assertTrue(policy.shouldRun(0));
+        assertFalse(policy.shouldRun(0));
+        assertFalse(policy.shouldRun(0));
+        assertFalse(policy.shouldRun(3));
+        assertTrue(policy.shouldRun(5));
+        assertFalse(policy.shouldRun(5));
+        assertFalse(policy.shouldRun(7));
+        assertTrue(policy.shouldRun(10));
+    }
+
+    @Test
+    public void totalTimeLimit() {
+        CallbackPolicy policy = new CallbackPolicy(Model.ObjType.MIN);
+        policy.setNodeFrequency(1);
+        policy.setTimeLimits(20, 50);
+        assertEquals(20, policy.getRunLimits().getTimeLimitMillis());
+        assertTrue(policy.shouldRun(0));
+        policy.addElapsedNanos(30_000_000);
+        assertTrue(policy.shouldRun(1));
+        policy.addElapsedNanos(30_000_000);
+        assertFalse(policy.shouldRun(2));
+        assertEquals(60_000_000, policy.getElapsedNanos());
+    }
+
+    @Test
+    public void comparesWithTheIncumbent() {
+        CallbackPolicy min = new CallbackPolicy(Model.ObjType.MIN);
+        assertTrue(min.shouldInject(10, false, 0));
+        assertTrue(min.shouldInject(4, true, 5));
+        assertFalse(min.shouldInject(5, true, 5));
+        CallbackPolicy max = new CallbackPolicy(Model.ObjType.MAX);
+        assertTrue(max.shouldInject(6, true, 5));
+        assertFalse(max.shouldInject(4, true, 5));
+    }
+}
@@ -0,0 +1,74 @@
+package heuristics.test;
+
+import heuristics.ziround.CplexPool;
+import ilog.cplex.IloCplex;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link CplexPool}, requires the CPLEX native library
+ */
+@RunWith(JUnit4.class)
+public class CplexPoolTest {
+
+    @Test
+    public void reusesEnvironments() throws Exception {
+        try (CplexPool pool = new CplexPool(2)) {
+            IloCplex first = pool.acquire();
+            IloCplex second = pool.acquire();
+            pool.release(first);
+            assertSame(first, pool.acquire());
+            assertEquals(2, pool.getCreated());
+            assertEquals(0, pool.getIdle());
+            pool.release(first);
+            pool.release(second);
+            assertEquals(2, pool.getIdle());
+        }
+    }
+
+    @Test
+    public void closeEndsIdleEnvironments() throws Exception {
+        CplexPool pool = new CplexPool(1);
+        pool.release(pool.acquire());
+        pool.close();
+        assertEquals(0, pool.getLive());
+        assertThrows(IllegalStateException.class, pool::acquire);
+    }
+
+    @Test
+    public void releaseAfterCloseEnds() throws Exception {
+        CplexPool pool = new CplexPool(1);
+        IloCplex cplex = pool.acquire();
+        pool.close();
+        pool.release(cplex);
+        assertEquals(0, pool.getLive());
+        assertEquals(0, pool.getIdle());
+    }
+
+    @Test
+    public void waitingAcquireFailsAfterClose() throws Exception {
+        CplexPool pool = new CplexPool(1);
+        IloCplex cplex = pool.acquire();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread waiting = new Thread(() -> {
+            try {
+                pool.acquire();
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        waiting.start();
+        //Gives the thread the time to block on the permit
+        Thread.sleep(100);
+        pool.close();
+        pool.release(cplex);
+        waiting.join();
+        assertTrue(failure.get() instanceof IllegalStateException);
+        assertEquals(0, pool.getLive());
+    }
+}
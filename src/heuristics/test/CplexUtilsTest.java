@@ -1,8 +1,8 @@
 package heuristics.test;
 
+import heuristics.ziround.CplexPool;
 import heuristics.ziround.Model;
 import ilog.concert.IloException;
-import ilog.cplex.IloCplex;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -56,40 +56,30 @@ public class CplexUtilsTest {
         }
     }
 
-    Model model;
-
     @Test
     public void fromMPS() {
-        for (String file : files) {
-
-
-            try {
+        try (CplexPool pool = new CplexPool(1)) {
+            for (String file : files) {
                 System.out.println(file);
-                IloCplex cplex = new IloCplex();
-                cplex.importModel(file);
-                model = new Model(cplex);
-            } catch (IloException e) {
-                e.printStackTrace();
-                failed(file + e.getMessage());
-            } catch (Exception e) {
-                e.printStackTrace();
-                failed(file + e.getMessage());
-            }
-
-            try {
-                assertTrue(model.countNumVariables() > 0);
-            } catch (IloException e) {
-                e.printStackTrace();
-                failed(file + e.getMessage());
-            }
-
-            try {
-                assertTrue(model.countConstraints() > 0);
-            } catch (IloException e) {
-                e.printStackTrace();
-                failed(file + e.getMessage());
+                try (Model model = Model.fromFile(pool, file)) {
+                    try {
+                        assertTrue(model.countNumVariables() > 0);
+                    } catch (IloException e) {
+                        e.printStackTrace();
+                        failed(file + e.getMessage());
+                    }
+
+                    try {
+                        assertTrue(model.countConstraints() > 0);
+                    } catch (IloException e) {
+                        e.printStackTrace();
+                        failed(file + e.getMessage());
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    failed(file + e.getMessage());
+                }
             }
-            System.gc();
         }
 
         try {
@@ -0,0 +1,56 @@
+package heuristics.test;
+
+import heuristics.ziround.*;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link ComponentDecomposition} and {@link DecomposedZiRound}
+ */
+@RunWith(JUnit4.class)
+public class DecomposedZiRoundTest {
+    private static final int THREADS = 2;
+
+    /**
+     * min x0 + x1 + x2 + y3 + x4
+     * x0 + x1 <= 3.5
+     * x2 + y3 = 1.5
+     * 0 <= x <= 10 INT, 0 <= y3 <= 10, x4 in no constraint
+     */
+    private static ModelSnapshot blockModel() {
+        return new ModelSnapshot(new double[]{0, 0, 0, 0, 0}, new double[]{10, 10, 10, 10, 10},
+                new boolean[]{true, true, true, false, true}, new double[]{1, 1, 1, 1, 1}, Model.ObjType.MIN,
+                new double[]{Double.NEGATIVE_INFINITY, 1.5}, new double[]{3.5, 1.5},
+                new int[]{0, 2, 4}, new int[]{0, 1, 2, 3}, new double[]{1, 1, 1, 1});
+    }
+
+    @Test
+    public void findsComponents() {
+        ComponentDecomposition decomposition = new ComponentDecomposition(blockModel());
+        assertEquals(3, decomposition.countComponents());
+        assertArrayEquals(new int[]{0, 1}, decomposition.getColumns(0));
+        assertArrayEquals(new int[]{2, 3}, decomposition.getColumns(1));
+        assertArrayEquals(new int[]{4}, decomposition.getColumns(2));
+        assertArrayEquals(new int[]{1}, decomposition.getRows(1));
+        assertEquals(0, decomposition.extract(2).countRows());
+    }
+
+    @Test
+    public void rerunsOnlyFailedComponents() throws Exception {
+        ModelSnapshot snapshot = blockModel();
+        DecomposedZiRound decomposed = new DecomposedZiRound(snapshot, new double[]{1.5, 2, 0.5, 1, 2.5}, ZiRoundTest.TEST_THRESHOLD);
+        HeuristicResult first = decomposed.run(THREADS, null);
+        assertEquals(HeuristicResult.Status.STALLED, first.getStatus());
+        assertEquals(1, first.getFractionalCount());
+        assertTrue(decomposed.getComponentResult(0).isSolved());
+        HeuristicResult solvedBlock = decomposed.getComponentResult(0);
+
+        HeuristicResult second = decomposed.rerunFailed(THREADS, ziRound -> ziRound.setEqualityExtension(true));
+        assertTrue(second.isSolved());
+        assertSame(solvedBlock, decomposed.getComponentResult(0));
+        assertTrue(new FeasibilityVerifier(snapshot).verify(second.getValues()).isFeasible());
+    }
+}
@@ -0,0 +1,104 @@
+package heuristics.test;
+
+import heuristics.ziround.FeasibilityReport;
+import heuristics.ziround.FeasibilityVerifier;
+import heuristics.ziround.Model;
+import heuristics.ziround.ModelSnapshot;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * min x0 + x1 + x2
+ * x0 + 2 x1 <= 4
+ * -x1 + 3 x2 >= 1
+ * x0 + x2 = 2
+ * 0 <= x <= 10, x0, x2 INT
+ */
+@RunWith(JUnit4.class)
+public class FeasibilityVerifierTest {
+    private static final double DELTA = 1e-9;
+
+    private final ModelSnapshot snapshot = new ModelSnapshot(new double[]{0, 0, 0}, new double[]{10, 10, 10},
+            new boolean[]{true, false, true}, new double[]{1, 1, 1}, Model.ObjType.MIN,
+            new double[]{Double.NEGATIVE_INFINITY, 1, 2}, new double[]{4, Double.POSITIVE_INFINITY, 2},
+            new int[]{0, 2, 4, 6}, new int[]{0, 1, 1, 2, 0, 2}, new double[]{1, 2, -1, 3, 1, 1});
+    private final FeasibilityVerifier verifier = new FeasibilityVerifier(snapshot);
+
+    @Test
+    public void feasible() {
+        FeasibilityReport report = verifier.verify(new double[]{1, 1.5, 1});
+        assertTrue(report.isFeasible());
+        assertEquals(3.5, report.getObjectiveValue(), DELTA);
+        assertEquals(0, report.getMaxViolation(), DELTA);
+    }
+
+    @Test
+    public void violatedRows() {
+        //row 0: 2 + 4 = 6 > 4, row 2: 2 + 1 = 3 != 2
+        FeasibilityReport report = verifier.verify(new double[]{2, 2, 1});
+        assertFalse(report.isFeasible());
+        assertEquals(2, report.getViolatedRows());
+        assertEquals(2, report.getMaxViolation(), DELTA);
+    }
+
+    @Test
+    public void boundsAndIntegrality() {
+        FeasibilityReport report = verifier.verify(new double[]{1.5, -1, 0.5});
+        assertEquals(1, report.getViolatedBounds());
+        assertEquals(2, report.getFractionalIntegers());
+        assertFalse(report.isFeasible());
+    }
+
+    @Test
+    public void parallelBlocks() {
+        //Large enough to be verified in parallel: x_j - x_(j+1) <= 0 on a chain of variables
+        int n = 200_000;
+        int[] rowStart = new int[n];
+        int[] rowIndex = new int[2 * (n - 1)];
+        double[] rowValue = new double[2 * (n - 1)];
+        double[] rowLB = new double[n - 1];
+        double[] rowUB = new double[n - 1];
+        for (int i = 0; i < n - 1; i++) {
+            rowStart[i + 1] = 2 * (i + 1);
+            rowIndex[2 * i] = i;
+            rowIndex[2 * i + 1] = i + 1;
+            rowValue[2 * i] = 1;
+            rowValue[2 * i + 1] = -1;
+            rowLB[i] = Double.NEGATIVE_INFINITY;
+        }
+        double[] colLB = new double[n];
+        double[] colUB = new double[n];
+        double[] x = new double[n];
+        for (int j = 0; j < n; j++) {
+            colUB[j] = n;
+            x[j] = j;
+        }
+        ModelSnapshot chain = new ModelSnapshot(colLB, colUB, new boolean[n], new double[n], Model.ObjType.MIN,
+                rowLB, rowUB, rowStart, rowIndex, rowValue);
+        assertTrue(new FeasibilityVerifier(chain).verify(x).isFeasible());
+
+        x[1000] = 5000;
+        FeasibilityReport report = new FeasibilityVerifier(chain).verify(x);
+        assertEquals(1, report.getViolatedRows());
+        assertEquals(3999, report.getMaxViolation(), DELTA);
+    }
+
+    @Test
+    public void sosSets() {
+        //SOS1 on {x0, x1}, SOS2 on {x0, x1, x2}, no rows
+        ModelSnapshot sos = new ModelSnapshot(new double[]{0, 0, 0}, new double[]{1, 1, 1},
+                new boolean[]{false, false, false}, new double[]{1, 1, 1}, Model.ObjType.MIN,
+                new double[0], new double[0], new int[]{0}, new int[0], new double[0],
+                new int[]{1, 2}, new int[]{0, 2, 5}, new int[]{0, 1, 0, 1, 2});
+        FeasibilityVerifier sosVerifier = new FeasibilityVerifier(sos);
+        assertTrue(sosVerifier.verify(new double[]{0, 0.5, 0.5}).isFeasible());
+
+        FeasibilityReport both = sosVerifier.verify(new double[]{0.5, 0.5, 0});
+        assertEquals(1, both.getViolatedSOS());
+        assertFalse(both.isFeasible());
+        assertEquals(2, sosVerifier.verify(new double[]{0.5, 0.5, 0.5}).getViolatedSOS());
+    }
+}
@@ -0,0 +1,111 @@
+package heuristics.test;
+
+import heuristics.ziround.*;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * max 5 x0 + 4 x1 + 3 x2
+ * 2 x0 + 3 x1 + x2 <= 5
+ * 4 x0 + x1 + 2 x2 <= 11
+ * 3 x0 + 4 x1 + 2 x2 <= 8
+ * 0 <= x <= 10, x INT
+ * <p>
+ * The relaxed point used here is an interior fractional one, [2, 0, 1] is a feasible integer solution
+ */
+@RunWith(JUnit4.class)
+public class HeuristicPortfolioTest {
+    static final double[] RELAXED = {1.5, 0.3, 0.7};
+
+    private final ModelSnapshot snapshot = knapsackModel();
+
+    /**
+     * @return The model described above, shared with the other tests of the portfolio heuristics
+     */
+    static ModelSnapshot knapsackModel() {
+        return new ModelSnapshot(new double[]{0, 0, 0}, new double[]{10, 10, 10},
+                new boolean[]{true, true, true}, new double[]{5, 4, 3}, Model.ObjType.MAX,
+                new double[]{Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY},
+                new double[]{5, 11, 8},
+                new int[]{0, 3, 6, 9}, new int[]{0, 1, 2, 0, 1, 2, 0, 1, 2}, new double[]{2, 3, 1, 4, 1, 2, 3, 4, 2});
+    }
+
+    private void assertFeasibleIfSolved(HeuristicResult result) {
+        if (result.isSolved())
+            assertTrue(new FeasibilityVerifier(snapshot).verify(result.getValues()).isFeasible());
+    }
+
+    @Test
+    public void simpleRounding() throws Exception {
+        //Only <= constraints with positive multipliers: rounding down is always safe
+        HeuristicResult result = new SimpleRounding(snapshot, RELAXED).applyHeuristic();
+        assertTrue(result.isSolved());
+        assertArrayEquals(new double[]{1, 0, 0}, result.getValues());
+    }
+
+    @Test
+    public void shiftAndPropagate() throws Exception {
+        HeuristicResult result = new ShiftAndPropagate(snapshot, RELAXED, ShiftAndPropagate.DEFAULT_MAX_PASSES).applyHeuristic();
+        assertTrue(result.isSolved());
+        assertFeasibleIfSolved(result);
+    }
+
+    @Test
+    public void randomizedRoundingIsReproducible() throws Exception {
+        HeuristicResult first = new RandomizedRounding(snapshot, RELAXED, 7, 8).applyHeuristic();
+        HeuristicResult second = new RandomizedRounding(snapshot, RELAXED, 7, 8).applyHeuristic();
+        assertArrayEquals(first.getValues(), second.getValues());
+        assertEquals(0, first.getFractionalCount());
+        assertFeasibleIfSolved(first);
+    }
+
+    @Test
+    public void raceFirstFeasible() throws Exception {
+        HeuristicPortfolio.Entry winner = HeuristicPortfolio.standard(snapshot, RELAXED, ZiRoundTest.TEST_THRESHOLD, 1)
+                .race(HeuristicPortfolio.Mode.FIRST_FEASIBLE, 10_000);
+        assertNotNull(winner);
+        assertTrue(winner.getReport().isFeasible());
+    }
+
+    @Test
+    public void raceBestWithinDeadline() throws Exception {
+        HeuristicPortfolio.Entry winner = HeuristicPortfolio.standard(snapshot, RELAXED, ZiRoundTest.TEST_THRESHOLD, 1)
+                .race(HeuristicPortfolio.Mode.BEST_WITHIN_DEADLINE, 10_000);
+        assertNotNull(winner);
+        assertTrue(winner.getReport().isFeasible());
+        //Rounding everything down gives 5, ZiRound and the randomized rounding can do better
+        assertTrue(winner.getReport().getObjectiveValue() >= 8);
+    }
+
+    @Test
+    public void emptyPortfolio() {
+        assertThrows(IllegalStateException.class,
+                () -> new HeuristicPortfolio(snapshot).race(HeuristicPortfolio.Mode.BEST_WITHIN_DEADLINE, 1000));
+    }
+
+    @Test
+    public void simpleRoundingIsCancellable() throws Exception {
+        SimpleRounding rounding = new SimpleRounding(snapshot, RELAXED);
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        rounding.setCancellationToken(token);
+        HeuristicResult result = rounding.applyHeuristic();
+        assertEquals(HeuristicResult.Status.CANCELLED, result.getStatus());
+        assertEquals(0, result.getShifts());
+    }
+
+    @Test
+    public void randomizedRoundingUsesTheTolerance() throws Exception {
+        double[] nearInteger = {1.0000000001, 0, 1};
+        HeuristicResult tolerant = new RandomizedRounding(snapshot, nearInteger, 7, 1).applyHeuristic();
+        assertEquals(0, tolerant.getShifts());
+        assertTrue(tolerant.isSolved());
+
+        RandomizedRounding exact = new RandomizedRounding(snapshot, nearInteger, 7, 1);
+        exact.setIntegralityTolerance(0);
+        assertEquals(1, exact.applyHeuristic().getShifts());
+    }
+}
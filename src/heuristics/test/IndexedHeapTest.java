@@ -0,0 +1,72 @@
+package heuristics.test;
+
+import heuristics.ziround.IndexedHeap;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link IndexedHeap}
+ */
+@RunWith(JUnit4.class)
+public class IndexedHeapTest {
+    private static final int SIZE = 200;
+    private static final long SEED = 7;
+
+    @Test
+    public void pollsInKeyOrder() {
+        Random random = new Random(SEED);
+        IndexedHeap heap = new IndexedHeap(SIZE);
+        for (int id = 0; id < SIZE; id++)
+            heap.update(id, random.nextDouble());
+        //Changes in both directions and removals
+        for (int id = 0; id < SIZE; id += 3)
+            heap.update(id, random.nextDouble() * 2 - 0.5);
+        for (int id = 1; id < SIZE; id += 7)
+            heap.remove(id);
+
+        double last = Double.NEGATIVE_INFINITY;
+        int count = 0;
+        while (!heap.isEmpty()) {
+            int id = heap.peek();
+            double key = heap.getKey(id);
+            assertEquals(id, heap.poll());
+            assertFalse(heap.contains(id));
+            assertTrue(key >= last);
+            last = key;
+            count++;
+        }
+        assertEquals(SIZE - (SIZE + 5) / 7, count);
+    }
+
+    @Test
+    public void decreaseKey() {
+        IndexedHeap heap = new IndexedHeap(3);
+        heap.update(0, 1);
+        heap.update(1, 2);
+        heap.update(2, 3);
+        heap.update(2, 0);
+        assertEquals(2, heap.poll());
+        heap.update(0, 5);
+        assertEquals(1, heap.poll());
+        assertEquals(0, heap.poll());
+    }
+
+    @Test
+    public void tieBreaks() {
+        IndexedHeap heap = new IndexedHeap(4);
+        heap.update(0, -0.2, 0.1);
+        heap.update(1, -0.4, 0.45);
+        heap.update(2, -0.4, 0.3);
+        heap.update(3, -0.2, 0.05);
+        assertEquals(2, heap.poll());
+        assertEquals(1, heap.poll());
+        assertEquals(3, heap.poll());
+        heap.update(0, -0.2, 0.01);
+        assertEquals(0, heap.poll());
+    }
+}
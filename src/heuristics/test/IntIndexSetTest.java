@@ -0,0 +1,56 @@
+package heuristics.test;
+
+import heuristics.ziround.IntIndexSet;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link IntIndexSet}
+ */
+@RunWith(JUnit4.class)
+public class IntIndexSetTest {
+
+    @Test
+    public void membership() {
+        IntIndexSet set = new IntIndexSet(130, new int[]{129, 3, 64, 3});
+        assertEquals(3, set.size());
+        assertTrue(set.contains(3));
+        assertTrue(set.contains(64));
+        assertTrue(set.contains(129));
+        assertFalse(set.contains(4));
+        assertFalse(set.contains(130));
+        assertEquals(3, set.first());
+    }
+
+    @Test
+    public void removal() {
+        IntIndexSet set = IntIndexSet.fromMask(new boolean[]{true, false, true, true, false, true});
+        assertTrue(set.remove(2));
+        assertFalse(set.remove(2));
+        assertFalse(set.remove(1));
+        assertEquals(3, set.size());
+
+        int[] members = set.members();
+        assertEquals(0, members[0]);
+        assertEquals(3, members[1]);
+        assertEquals(5, members[2]);
+
+        int[] sum = new int[1];
+        set.forEach(j -> {
+            sum[0] += j;
+            set.remove(5);
+        });
+        assertEquals(3, sum[0]);
+        assertEquals(2, set.toArray().length);
+
+        set.remove(0);
+        set.remove(3);
+        assertTrue(set.isEmpty());
+        assertEquals(0, set.toArray().length);
+        //Compacted in place, the same array is returned
+        assertSame(members, set.members());
+    }
+}
@@ -0,0 +1,71 @@
+package heuristics.test;
+
+import heuristics.ziround.*;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Uses the model of {@link HeuristicPortfolioTest#knapsackModel()}, and the one of
+ * {@link ZiRoundSnapshotTest#sharedSlackModel()} where the order of the variables changes the rounding
+ */
+@RunWith(JUnit4.class)
+public class MultiStartZiRoundTest {
+    private static final double[] RELAXED = HeuristicPortfolioTest.RELAXED;
+    private static final double DELTA = 1e-9;
+
+    private final ModelSnapshot snapshot = HeuristicPortfolioTest.knapsackModel();
+
+    @Test
+    public void incumbentKeepsTheBest() {
+        Incumbent incumbent = new Incumbent(Model.ObjType.MAX);
+        assertFalse(incumbent.isPresent());
+        assertTrue(incumbent.canBeBeaten(-1e9));
+        assertTrue(incumbent.offer(5, new double[]{1}));
+        assertFalse(incumbent.offer(4, new double[]{2}));
+        assertTrue(incumbent.offer(7, new double[]{3}));
+        assertEquals(7, incumbent.getObjectiveValue());
+        assertArrayEquals(new double[]{3}, incumbent.getValues());
+        assertFalse(incumbent.canBeBeaten(7));
+    }
+
+    /**
+     * On {@link ZiRoundSnapshotTest#sharedSlackModel()} the natural order rounds to [2, 1], only a start that visits
+     * x1 first reaches the better [1, 2]
+     */
+    @Test
+    public void startsShareTheIncumbent() throws Exception {
+        ModelSnapshot sharedSlack = ZiRoundSnapshotTest.sharedSlackModel();
+        double[] relaxed = {1.9, 1.55};
+        MultiStartZiRound natural = new MultiStartZiRound(sharedSlack, relaxed, 0.01, null);
+        List<HeuristicResult> single = natural.run(1, 1, 11);
+        assertArrayEquals(new double[]{2, 1}, single.get(0).getValues(), DELTA);
+
+        MultiStartZiRound multiStart = new MultiStartZiRound(sharedSlack, relaxed, 0.01, null);
+        List<HeuristicResult> results = multiStart.run(8, 4, 11);
+        assertEquals(8, results.size());
+        Incumbent incumbent = multiStart.getIncumbent();
+        assertTrue(incumbent.isPresent());
+        assertArrayEquals(new double[]{1, 2}, incumbent.getValues(), DELTA);
+        assertTrue(new FeasibilityVerifier(sharedSlack).verify(incumbent.getValues()).isFeasible());
+        //Every solved start offers its solution, so the incumbent is the best of them
+        double best = Double.NEGATIVE_INFINITY;
+        for (HeuristicResult result : results)
+            if (result.isSolved())
+                best = Math.max(best, sharedSlack.getObjectiveValue(result.getValues()));
+        assertEquals(best, incumbent.getObjectiveValue(), DELTA);
+    }
+
+    @Test
+    public void prunedByABetterIncumbent() throws Exception {
+        Incumbent incumbent = new Incumbent(Model.ObjType.MAX);
+        incumbent.offer(100, new double[]{0, 0, 0});
+        ZiRound ziRound = new ZiRound(snapshot, RELAXED, ZiRoundTest.TEST_THRESHOLD);
+        ziRound.setIncumbent(incumbent);
+        assertEquals(HeuristicResult.Status.PRUNED, ziRound.applyHeuristic().getStatus());
+    }
+}
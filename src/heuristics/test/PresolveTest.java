@@ -0,0 +1,85 @@
+package heuristics.test;
+
+import heuristics.ziround.*;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link Presolve} and of its use in {@link ZiRound}
+ */
+@RunWith(JUnit4.class)
+public class PresolveTest {
+    private static final double DELTA = 1e-9;
+
+    /**
+     * min -x0 - x1
+     * x0 + x1 + x2 <= 5.5
+     * 2 x0 + 2 x1 <= 8 (parallel)
+     * x2 >= 1 (empty once x2 is fixed)
+     * 2 x0 <= 3 (singleton)
+     * 0 <= x0, x1 <= 10 INT, x2 = 2
+     */
+    private static ModelSnapshot reducibleModel() {
+        return new ModelSnapshot(new double[]{0, 0, 2}, new double[]{10, 10, 2}, new boolean[]{true, true, false},
+                new double[]{-1, -1, 0}, Model.ObjType.MIN,
+                new double[]{Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, 1, Double.NEGATIVE_INFINITY},
+                new double[]{5.5, 8, Double.POSITIVE_INFINITY, 3},
+                new int[]{0, 3, 5, 6, 7}, new int[]{0, 1, 2, 0, 1, 2, 0}, new double[]{1, 1, 1, 2, 2, 1, 2});
+    }
+
+    @Test
+    public void reducesTheModel() {
+        PostsolveMap map = new Presolve(reducibleModel()).apply();
+        assertFalse(map.isInfeasible());
+        ModelSnapshot reduced = map.getReducedSnapshot();
+        assertEquals(2, reduced.countColumns());
+        assertEquals(1, reduced.countRows());
+        assertEquals(1, map.countRemovedColumns());
+        assertEquals(3.5, reduced.getRowUB()[0], DELTA);
+        assertEquals(1, reduced.getColUB()[0], DELTA);
+        assertEquals(-1, map.getReducedColumn(2));
+        assertArrayEquals(new double[]{1, 2, 2}, map.expand(new double[]{1, 2}), DELTA);
+    }
+
+    @Test
+    public void detectsInfeasibleBounds() {
+        ModelSnapshot snapshot = new ModelSnapshot(new double[]{2.5}, new double[]{2.5}, new boolean[]{true},
+                new double[]{1}, Model.ObjType.MIN, new double[0], new double[0],
+                new int[]{0}, new int[0], new double[0]);
+        assertTrue(new Presolve(snapshot).apply().isInfeasible());
+    }
+
+    @Test
+    public void ziRoundReportsOriginalSpace() throws Exception {
+        ModelSnapshot snapshot = reducibleModel();
+        ZiRound ziRound = new ZiRound(snapshot, new double[]{1, 2.5, 2}, ZiRoundTest.TEST_THRESHOLD);
+        ziRound.setPresolve(true);
+        HeuristicResult result = ziRound.applyHeuristic();
+        assertTrue(result.isSolved());
+        assertEquals(3, result.getValues().length);
+        assertEquals(2, result.getValues()[2], DELTA);
+        assertTrue(new FeasibilityVerifier(snapshot).verify(result.getValues()).isFeasible());
+    }
+
+    /**
+     * 0 x0 + 2 x1 <= 4 is a singleton row, 0 x0 >= -1 an empty one
+     */
+    @Test
+    public void skipsExplicitZeros() {
+        ModelSnapshot snapshot = new ModelSnapshot(new double[]{0, 0}, new double[]{10, 10}, new boolean[]{true, false},
+                new double[]{1, 1}, Model.ObjType.MIN,
+                new double[]{Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, -1},
+                new double[]{4, 8, Double.POSITIVE_INFINITY},
+                new int[]{0, 2, 4, 5}, new int[]{0, 1, 0, 1, 0}, new double[]{0, 2, 1, 1, 0});
+        PostsolveMap map = new Presolve(snapshot).apply();
+        assertFalse(map.isInfeasible());
+        ModelSnapshot reduced = map.getReducedSnapshot();
+        assertEquals(1, reduced.countRows());
+        assertEquals(0, reduced.getColLB()[0], DELTA);
+        assertEquals(10, reduced.getColUB()[0], DELTA);
+        assertEquals(2, reduced.getColUB()[1], DELTA);
+    }
+}
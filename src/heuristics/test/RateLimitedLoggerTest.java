@@ -0,0 +1,32 @@
+package heuristics.test;
+
+import heuristics.ziround.RateLimitedLogger;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link RateLimitedLogger}
+ */
+@RunWith(JUnit4.class)
+public class RateLimitedLoggerTest {
+
+    @Test
+    public void suppressesOverflow() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        RateLimitedLogger logger = new RateLimitedLogger(new PrintStream(bytes), 2, 60_000);
+        for (int i = 0; i < 5; i++)
+            logger.log("message " + i);
+        logger.flush();
+
+        String[] lines = bytes.toString().split(System.lineSeparator());
+        assertEquals(3, lines.length);
+        assertEquals("message 1", lines[1]);
+        assertEquals("(3 messages suppressed)", lines[2]);
+    }
+}
@@ -0,0 +1,84 @@
+package heuristics.test;
+
+import heuristics.ziround.*;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link SolutionPool}
+ */
+@RunWith(JUnit4.class)
+public class SolutionPoolTest {
+
+    /**
+     * max x0 + x1 + y2
+     * 0 <= x0, x1 <= 10 INT, 0 <= y2 <= 10
+     */
+    private final ModelSnapshot snapshot = new ModelSnapshot(new double[]{0, 0, 0}, new double[]{10, 10, 10},
+            new boolean[]{true, true, false}, new double[]{1, 1, 1}, Model.ObjType.MAX,
+            new double[0], new double[0], new int[]{0}, new int[0], new double[0]);
+
+    @Test
+    public void keepsTheBestDistinct() {
+        SolutionPool pool = new SolutionPool(snapshot, 2);
+        assertTrue(pool.offer(3, new double[]{1, 2, 0}));
+        //Same integer part: a better objective replaces the solution, a worse one is rejected
+        assertTrue(pool.offer(3.5, new double[]{1, 2, 0.5}));
+        assertFalse(pool.offer(3, new double[]{1, 2, 0}));
+        assertEquals(2, pool.getDuplicates());
+        assertEquals(1, pool.size());
+        assertEquals(3.5, pool.getBestObjective());
+        assertTrue(pool.offer(5, new double[]{2, 3, 0}));
+        assertFalse(pool.offer(1, new double[]{0, 1, 0}));
+        assertTrue(pool.offer(8, new double[]{4, 4, 0}));
+
+        assertEquals(2, pool.size());
+        assertEquals(8, pool.getBestObjective());
+        assertEquals(5, pool.getWorstObjective());
+        assertEquals(8, pool.getObjectiveValues()[0]);
+        double[] best = pool.getSolutions()[0];
+        assertEquals(4, best[0]);
+        assertTrue(Double.isNaN(best[2]));
+        assertEquals(1, pool.getDiversity());
+        assertEquals(6, pool.getOffered());
+        assertEquals(4, pool.getAccepted());
+
+        //A better duplicate of the worst solution moves the worst objective of a full pool
+        assertTrue(pool.offer(6, new double[]{2, 3, 0.5}));
+        assertEquals(6, pool.getWorstObjective());
+        assertFalse(pool.offer(5.5, new double[]{5, 5, 0}));
+        assertEquals(2, pool.size());
+    }
+
+    @Test
+    public void concurrentOffers() throws Exception {
+        SolutionPool pool = new SolutionPool(snapshot, 10);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int v = 0; v < 100; v++)
+                        pool.offer(v, new double[]{v, 0, 0});
+                }));
+            }
+            for (Future<?> future : futures)
+                future.get();
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(10, pool.size());
+        assertEquals(99, pool.getBestObjective());
+        assertEquals(90, pool.getWorstObjective());
+        assertEquals(400, pool.getOffered());
+    }
+}
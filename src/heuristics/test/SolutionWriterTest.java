@@ -0,0 +1,70 @@
+package heuristics.test;
+
+import heuristics.ziround.Model;
+import heuristics.ziround.ModelSnapshot;
+import heuristics.ziround.SolutionWriter;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link SolutionWriter}
+ */
+@RunWith(JUnit4.class)
+public class SolutionWriterTest {
+
+    /**
+     * min x0 + y1
+     * x0 + y1 <= 3.5
+     * 0 <= x0 <= 10 INT, 0 <= y1 <= 10
+     */
+    private static ModelSnapshot mixedModel() {
+        return new ModelSnapshot(new double[]{0, 0}, new double[]{10, 10}, new boolean[]{true, false},
+                new double[]{1, 1}, Model.ObjType.MIN,
+                new double[]{Double.NEGATIVE_INFINITY}, new double[]{3.5},
+                new int[]{0, 2}, new int[]{0, 1}, new double[]{1, 1});
+    }
+
+    private static long countVariables(List<String> lines) {
+        return lines.stream().filter(line -> line.contains("<variable ")).count();
+    }
+
+    @Test
+    public void writeMst() throws Exception {
+        SolutionWriter writer = new SolutionWriter(mixedModel(), new String[]{"x<0>", null});
+        Path path = Files.createTempFile("ziround", ".mst");
+        try {
+            writer.writeMst(path, new double[]{2, 1.25}, false, 0);
+            List<String> lines = Files.readAllLines(path);
+            assertEquals(2, countVariables(lines));
+            assertTrue(lines.contains("   <variable name=\"x&lt;0&gt;\" index=\"0\" value=\"2\"/>"));
+            assertTrue(lines.contains("   <variable name=\"x1\" index=\"1\" value=\"1.25\"/>"));
+
+            writer.writeMst(path, new double[]{2, 1.25}, true, 0);
+            assertEquals(1, countVariables(Files.readAllLines(path)));
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void writeSol() throws Exception {
+        SolutionWriter writer = new SolutionWriter(mixedModel(), null);
+        Path path = Files.createTempFile("ziround", ".sol");
+        try {
+            writer.writeSol(path, new double[]{2, 1.25});
+            List<String> lines = Files.readAllLines(path);
+            assertEquals(2, countVariables(lines));
+            assertTrue(lines.contains("   objectiveValue=\"3.25\""));
+            assertTrue(lines.contains("  <constraint index=\"0\" slack=\"0.25\"/>"));
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+}
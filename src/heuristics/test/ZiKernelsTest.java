@@ -0,0 +1,111 @@
+package heuristics.test;
+
+import heuristics.ziround.Model;
+import heuristics.ziround.ModelSnapshot;
+import heuristics.ziround.NumVariable;
+import heuristics.ziround.ZiKernels;
+import heuristics.ziround.ZiRound;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the kernels in use on this JVM (SIMD or scalar) against the plain definitions
+ */
+@RunWith(JUnit4.class)
+public class ZiKernelsTest {
+    private static final double DELTA = 1e-9;
+    private static final int SIZE = 1037; //not a multiple of any vector length, the tails are tested too
+
+    private final ZiKernels kernels = ZiKernels.getInstance();
+    private final Random random = new Random(42);
+
+    private double[] randomValues() {
+        double[] values = new double[SIZE];
+        for (int k = 0; k < SIZE; k++) {
+            //A third of the values are integer, some negative
+            values[k] = k % 3 == 0 ? random.nextInt(200) - 100 : random.nextDouble() * 200 - 100;
+        }
+        return values;
+    }
+
+    private int[] randomIndex(int bound) {
+        int[] index = new int[SIZE];
+        for (int k = 0; k < SIZE; k++)
+            index[k] = random.nextInt(bound);
+        return index;
+    }
+
+    @Test
+    public void zis() {
+        double[] values = randomValues();
+        int[] index = randomIndex(SIZE);
+        double[] zis = new double[SIZE];
+        kernels.zis(values, index, zis, NumVariable.getIntegralityTolerance());
+        for (int k = 0; k < SIZE; k++)
+            assertEquals(ZiRound.computeZI(values[index[k]]), zis[k], DELTA);
+    }
+
+    @Test
+    public void countFractional() {
+        double[] values = randomValues();
+        int[] index = randomIndex(SIZE);
+        int expected = 0;
+        for (int j : index)
+            if (ZiRound.computeZI(values[j]) != 0)
+                expected++;
+        assertEquals(expected, kernels.countFractional(values, index, NumVariable.getIntegralityTolerance()));
+    }
+
+    @Test
+    public void sum() {
+        double[] values = randomValues();
+        double expected = 0;
+        for (double value : values)
+            expected += value;
+        assertEquals(expected, kernels.sum(values), DELTA);
+    }
+
+    @Test
+    public void dot() {
+        double[] a = randomValues();
+        double[] b = randomValues();
+        double expected = 0;
+        for (int k = 0; k < SIZE; k++)
+            expected += a[k] * b[k];
+        assertEquals(expected, kernels.dot(a, b), DELTA);
+    }
+
+    @Test
+    public void sparseDot() {
+        double[] value = randomValues();
+        double[] x = randomValues();
+        int[] index = randomIndex(SIZE);
+        int from = 5;
+        int to = SIZE - 3;
+        double expected = 0;
+        for (int k = from; k < to; k++)
+            expected += value[k] * x[index[k]];
+        assertEquals(expected, kernels.sparseDot(index, value, from, to, x), DELTA);
+    }
+
+    @Test
+    public void rowActivities() {
+        //  x0 + 2 x1        <= 4
+        //       -  x1 + 3x2 >= 1
+        ModelSnapshot snapshot = new ModelSnapshot(new double[]{0, 0, 0}, new double[]{10, 10, 10},
+                new boolean[]{true, false, true}, new double[]{1, 1, 1}, Model.ObjType.MIN,
+                new double[]{Double.NEGATIVE_INFINITY, 1}, new double[]{4, Double.POSITIVE_INFINITY},
+                new int[]{0, 2, 4}, new int[]{0, 1, 1, 2}, new double[]{1, 2, -1, 3});
+        double[] activity = new double[2];
+        snapshot.computeRowActivities(new double[]{1, 0.5, 2}, activity);
+        assertEquals(2, activity[0], DELTA);
+        assertEquals(5.5, activity[1], DELTA);
+        //the column copy is derived from the rows
+        assertEquals(2, snapshot.getColStart()[2] - snapshot.getColStart()[1]);
+    }
+}
@@ -0,0 +1,296 @@
+package heuristics.test;
+
+import heuristics.ziround.*;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs {@link ZiRound} on small snapshots, without a solver
+ */
+@RunWith(JUnit4.class)
+public class ZiRoundSnapshotTest {
+    private static final double DELTA = 1e-9;
+
+    /**
+     * min x0 + x1
+     * x0 + x1 <= 3.5
+     * 0 <= x <= 10, x INT
+     */
+    private static ModelSnapshot inequalityModel() {
+        return new ModelSnapshot(new double[]{0, 0}, new double[]{10, 10}, new boolean[]{true, true},
+                new double[]{1, 1}, Model.ObjType.MIN,
+                new double[]{Double.NEGATIVE_INFINITY}, new double[]{3.5},
+                new int[]{0, 2}, new int[]{0, 1}, new double[]{1, 1});
+    }
+
+    /**
+     * min x0 + y
+     * x0 + y = 1.5
+     * 0 <= x0 <= 5 INT, 0 <= y <= 10
+     */
+    private static ModelSnapshot equalityModel() {
+        return new ModelSnapshot(new double[]{0, 0}, new double[]{5, 10}, new boolean[]{true, false},
+                new double[]{1, 1}, Model.ObjType.MIN,
+                new double[]{1.5}, new double[]{1.5},
+                new int[]{0, 2}, new int[]{0, 1}, new double[]{1, 1});
+    }
+
+    @Test
+    public void roundsWithinSlack() throws Exception {
+        ModelSnapshot snapshot = inequalityModel();
+        ZiRound ziRound = new ZiRound(snapshot, new double[]{1.5, 2}, ZiRoundTest.TEST_THRESHOLD);
+        HeuristicResult result = ziRound.applyHeuristic();
+        assertTrue(result.isSolved());
+        assertEquals(0, result.getFractionalCount());
+        assertEquals(1, result.getValues()[0], DELTA);
+        assertTrue(new FeasibilityVerifier(snapshot).verify(result.getValues()).isFeasible());
+        assertTrue(ziRound.Solutions()[0].isInt());
+    }
+
+    @Test
+    public void equalityBlocksPlainShifts() throws Exception {
+        ZiRound ziRound = new ZiRound(equalityModel(), new double[]{0.5, 1}, ZiRoundTest.TEST_THRESHOLD);
+        HeuristicResult result = ziRound.applyHeuristic();
+        assertEquals(HeuristicResult.Status.STALLED, result.getStatus());
+        assertEquals(1, result.getFractionalCount());
+    }
+
+    @Test
+    public void equalityExtension() throws Exception {
+        ModelSnapshot snapshot = equalityModel();
+        ZiRound ziRound = new ZiRound(snapshot, new double[]{0.5, 1}, ZiRoundTest.TEST_THRESHOLD);
+        ziRound.setEqualityExtension(true);
+        HeuristicResult result = ziRound.applyHeuristic();
+        assertTrue(result.isSolved());
+        assertEquals(1.5, result.getValues()[0] + result.getValues()[1], DELTA);
+        assertTrue(new FeasibilityVerifier(snapshot).verify(result.getValues()).isFeasible());
+    }
+
+    @Test
+    public void nearIntegerValuesAreSnapped() throws Exception {
+        ModelSnapshot snapshot = inequalityModel();
+        ZiRound ziRound = new ZiRound(snapshot, new double[]{0.9999999997, 2.0000000001}, ZiRoundTest.TEST_THRESHOLD);
+        HeuristicResult result = ziRound.applyHeuristic();
+        assertTrue(result.isSolved());
+        assertEquals(0, result.getShifts());
+        assertEquals(1.0, result.getValues()[0]);
+        assertEquals(2.0, result.getValues()[1]);
+        assertTrue(ziRound.Solutions()[1].isInt());
+    }
+
+    @Test
+    public void exactIntegralityTolerance() throws Exception {
+        assertNotEquals(0, ZiRound.computeZI(2.9999999997, 0));
+        assertEquals(1, ZiRound.countFractional(new double[]{2.9999999997, 3}, new int[]{0, 1}, 0));
+        assertEquals(0, ZiRound.computeZI(2.9999999997));
+
+        ZiRound exact = new ZiRound(inequalityModel(), new double[]{0.9999999997, 2}, ZiRoundTest.TEST_THRESHOLD);
+        exact.setIntegralityTolerance(0);
+        ZiRound tolerant = new ZiRound(inequalityModel(), new double[]{0.9999999997, 2}, ZiRoundTest.TEST_THRESHOLD);
+        assertEquals(1, exact.applyHeuristic().getShifts());
+        assertEquals(0, tolerant.applyHeuristic().getShifts());
+        assertThrows(IllegalArgumentException.class, () -> exact.setIntegralityTolerance(0.4));
+    }
+
+    /**
+     * x0 >= 2.000004 must hold after the snap, even if x0 is integer within the tolerance
+     */
+    @Test
+    public void snapRespectsSlack() throws Exception {
+        ModelSnapshot snapshot = new ModelSnapshot(new double[]{0}, new double[]{10}, new boolean[]{true},
+                new double[]{1}, Model.ObjType.MIN,
+                new double[]{2.000004}, new double[]{Double.POSITIVE_INFINITY},
+                new int[]{0, 1}, new int[]{0}, new double[]{1});
+        ZiRound ziRound = new ZiRound(snapshot, new double[]{2.000004}, ZiRoundTest.TEST_THRESHOLD);
+        ziRound.setIntegralityTolerance(NumVariable.MAX_INTEGRALITY_TOLERANCE);
+        HeuristicResult result = ziRound.applyHeuristic();
+        assertEquals(2.000004, result.getValues()[0], DELTA);
+        assertEquals(0, new FeasibilityVerifier(snapshot).verify(result.getValues()).getViolatedRows());
+    }
+
+    @Test
+    public void queueOrderings() throws Exception {
+        ModelSnapshot snapshot = inequalityModel();
+        for (ZiRound.Ordering ordering : ZiRound.Ordering.values()) {
+            ZiRound ziRound = new ZiRound(snapshot, new double[]{1.5, 1.75}, ZiRoundTest.TEST_THRESHOLD);
+            ziRound.setOrdering(ordering);
+            HeuristicResult result = ziRound.applyHeuristic();
+            assertTrue(result.isSolved());
+            assertTrue(new FeasibilityVerifier(snapshot).verify(result.getValues()).isFeasible());
+        }
+    }
+
+    /**
+     * max 0.2 x0 + 0.4 x1
+     * x0 + x1 <= 3.95
+     * 0 <= x <= 10, x INT
+     * <p>
+     * From (1.9, 1.55) the slack is enough to round up only one variable, the one visited first
+     */
+    static ModelSnapshot sharedSlackModel() {
+        return new ModelSnapshot(new double[]{0, 0}, new double[]{10, 10}, new boolean[]{true, true},
+                new double[]{0.2, 0.4}, Model.ObjType.MAX,
+                new double[]{Double.NEGATIVE_INFINITY}, new double[]{3.95},
+                new int[]{0, 2}, new int[]{0, 1}, new double[]{1, 1});
+    }
+
+    /**
+     * x1 has the larger multiplier, so it's visited first even if x0 is less fractional
+     */
+    @Test
+    public void objectiveOrderingIsLexicographic() throws Exception {
+        ModelSnapshot snapshot = sharedSlackModel();
+        ZiRound ziRound = new ZiRound(snapshot, new double[]{1.9, 1.55}, 0.01);
+        ziRound.setOrdering(ZiRound.Ordering.OBJECTIVE);
+        HeuristicResult result = ziRound.applyHeuristic();
+        assertTrue(result.isSolved());
+        assertArrayEquals(new double[]{1, 2}, result.getValues(), DELTA);
+
+        ziRound = new ZiRound(snapshot, new double[]{1.9, 1.55}, 0.01);
+        ziRound.setOrdering(ZiRound.Ordering.FRACTIONALITY);
+        assertArrayEquals(new double[]{2, 1}, ziRound.applyHeuristic().getValues(), DELTA);
+    }
+
+    /**
+     * The model of {@link #objectiveOrderingIsLexicographic()}: the variable visited first takes the slack
+     */
+    @Test
+    public void sweepFollowsTheGivenOrder() throws Exception {
+        ModelSnapshot snapshot = sharedSlackModel();
+        ZiRound forward = new ZiRound(snapshot, new double[]{1.9, 1.55}, 0.01);
+        forward.setIntegerSolutions(new int[]{0, 1});
+        assertArrayEquals(new double[]{2, 1}, forward.applyHeuristic().getValues(), DELTA);
+
+        ZiRound backward = new ZiRound(snapshot, new double[]{1.9, 1.55}, 0.01);
+        backward.setIntegerSolutions(new int[]{1, 0});
+        assertArrayEquals(new double[]{1, 2}, backward.applyHeuristic().getValues(), DELTA);
+    }
+
+    @Test
+    public void locks() {
+        ModelSnapshot inequality = inequalityModel();
+        assertArrayEquals(new int[]{1, 1}, inequality.getUpLocks());
+        assertArrayEquals(new int[]{0, 0}, inequality.getDownLocks());
+        ModelSnapshot equality = equalityModel();
+        assertArrayEquals(new int[]{1, 1}, equality.getUpLocks());
+        assertArrayEquals(new int[]{1, 1}, equality.getDownLocks());
+    }
+
+    @Test
+    public void lockFreeFirstPass() throws Exception {
+        ZiRound ziRound = new ZiRound(inequalityModel(), new double[]{1.5, 1.75}, ZiRoundTest.TEST_THRESHOLD);
+        ziRound.setLockRounding(true);
+        HeuristicResult result = ziRound.applyHeuristic();
+        assertTrue(result.isSolved());
+        assertEquals(2, result.getShifts());
+        assertArrayEquals(new double[]{1, 1}, result.getValues(), DELTA);
+    }
+
+    @Test
+    public void limitsStopTheRun() throws Exception {
+        ZiRound ziRound = new ZiRound(inequalityModel(), new double[]{1.5, 1.5}, ZiRoundTest.TEST_THRESHOLD);
+        ziRound.setLimits(new ZiRoundLimits(0, 0, 1));
+        HeuristicResult result = ziRound.applyHeuristic();
+        assertEquals(HeuristicResult.Status.SHIFT_LIMIT, result.getStatus());
+        assertEquals(1, result.getShifts());
+        assertEquals(1, result.getFractionalCount());
+
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        ziRound.setLimits(ZiRoundLimits.UNLIMITED);
+        ziRound.setCancellationToken(token);
+        assertEquals(HeuristicResult.Status.CANCELLED, ziRound.applyHeuristic().getStatus());
+    }
+
+    @Test
+    public void thresholdRejectsSmallDecreases() throws Exception {
+        //x0 can only move by 0.1 (ZI 0.5 -> 0.4), a threshold of 0.2 refuses it
+        ModelSnapshot snapshot = new ModelSnapshot(new double[]{0}, new double[]{10}, new boolean[]{true},
+                new double[]{1}, Model.ObjType.MIN,
+                new double[]{1.4}, new double[]{1.6},
+                new int[]{0, 1}, new int[]{0}, new double[]{1});
+        assertEquals(1, new ZiRound(snapshot, new double[]{1.5}, ZiRoundTest.TEST_THRESHOLD).applyHeuristic().getShifts());
+        assertEquals(0, new ZiRound(snapshot, new double[]{1.5}, 0.2).applyHeuristic().getShifts());
+    }
+
+    @Test
+    public void thresholdSnapsNearIntegers() throws Exception {
+        HeuristicResult result = new ZiRound(inequalityModel(), new double[]{1.5, 1.0000001}, 1e-6).applyHeuristic();
+        assertTrue(result.isSolved());
+        assertEquals(1, result.getValues()[1]);
+    }
+
+    @Test
+    public void thresholdSweep() throws Exception {
+        double[] thresholds = ThresholdSweep.logRange(1e-9, 0.4, 5);
+        assertEquals(5, thresholds.length);
+        assertEquals(0.4, thresholds[4]);
+        ThresholdSweep sweep = new ThresholdSweep(equalityModel(), new double[]{0.5, 1}, ziRound -> ziRound.setEqualityExtension(true));
+        List<ThresholdSweep.Entry> entries = sweep.run(thresholds, 2);
+        assertEquals(5, entries.size());
+        assertTrue(entries.get(0).getReport().isFeasible());
+    }
+
+    /**
+     * min -x0 - x1 - x2
+     * SOS1 {x0, x1, x2}
+     * 0 <= x <= 1, x INT
+     */
+    @Test
+    public void honorsSOSSets() throws Exception {
+        ModelSnapshot snapshot = new ModelSnapshot(new double[]{0, 0, 0}, new double[]{1, 1, 1},
+                new boolean[]{true, true, true}, new double[]{-1, -1, -1}, Model.ObjType.MIN,
+                new double[0], new double[0], new int[]{0}, new int[0], new double[0],
+                new int[]{1}, new int[]{0, 3}, new int[]{0, 1, 2});
+        assertEquals(0, snapshot.findViolatedSOS(new double[]{1, 1, 0}));
+
+        HeuristicResult result = new ZiRound(snapshot, new double[]{0.6, 0.7, 0}, 0).applyHeuristic();
+        assertTrue(result.isSolved());
+        assertEquals(0, result.getValues()[0], DELTA);
+        assertEquals(1, result.getValues()[1], DELTA);
+        assertEquals(-1, snapshot.findViolatedSOS(result.getValues()));
+
+        //The REAL members aren't moved by the shifts, the post-check reports the violation
+        ModelSnapshot real = new ModelSnapshot(new double[]{0, 0}, new double[]{1, 1},
+                new boolean[]{false, false}, new double[]{0, 0}, Model.ObjType.MIN,
+                new double[0], new double[0], new int[]{0}, new int[0], new double[0],
+                new int[]{2}, new int[]{0, 2}, new int[]{0, 1});
+        assertEquals(-1, real.findViolatedSOS(new double[]{0.5, 0.5}));
+        ModelSnapshot sos1 = new ModelSnapshot(new double[]{0, 0}, new double[]{1, 1},
+                new boolean[]{false, false}, new double[]{0, 0}, Model.ObjType.MIN,
+                new double[0], new double[0], new int[]{0}, new int[0], new double[0],
+                new int[]{1}, new int[]{0, 2}, new int[]{0, 1});
+        assertEquals(HeuristicResult.Status.SOS_VIOLATED,
+                new ZiRound(sos1, new double[]{0.5, 0.5}, 0).applyHeuristic().getStatus());
+    }
+
+    /**
+     * max x0 + x1 + x2 + x3
+     * x0 + x1 + x2 <= 1.5
+     * x2 - x3 >= 0
+     * 0 <= x <= 1, x INT
+     */
+    @Test
+    public void binaryFastPath() throws Exception {
+        ModelSnapshot snapshot = new ModelSnapshot(new double[]{0, 0, 0, 0}, new double[]{1, 1, 1, 1},
+                new boolean[]{true, true, true, true}, new double[]{1, 1, 1, 1}, Model.ObjType.MAX,
+                new double[]{Double.NEGATIVE_INFINITY, 0}, new double[]{1.5, Double.POSITIVE_INFINITY},
+                new int[]{0, 3, 5}, new int[]{0, 1, 2, 2, 3}, new double[]{1, 1, 1, 1, -1});
+        assertEquals(4, snapshot.getBinaryColumns().length);
+        double[] relaxed = {0.5, 0.3, 0.7, 0.6};
+
+        HeuristicResult general = new ZiRound(snapshot, relaxed, 0).applyHeuristic();
+        ZiRound fast = new ZiRound(snapshot, relaxed, 0);
+        fast.setBinaryFastPath(true);
+        HeuristicResult result = fast.applyHeuristic();
+        assertEquals(general.getStatus(), result.getStatus());
+        for (int j = 0; j < relaxed.length; j++)
+            assertEquals(general.getValues()[j], result.getValues()[j], DELTA);
+        assertTrue(new FeasibilityVerifier(snapshot).verify(result.getValues()).isFeasible());
+    }
+}
@@ -96,7 +96,7 @@ public class ZiRoundTest {
                         minSlack = testModel.getConstraintSlack(i) / testModel.getConstraintsMultiplier(i, j);
                 }
             }
-            minSlack = (minSlack == -1 ? 0 : minSlack);
+            minSlack = (minSlack == -1 ? Double.POSITIVE_INFINITY : minSlack);
             assertEquals(minSlack, ziRoundHeuristic.getSlackUB(j));
         }
     }
@@ -114,7 +114,7 @@ public class ZiRoundTest {
                         minSlack = -testModel.getConstraintSlack(i) / testModel.getConstraintsMultiplier(i, j);
                 }
             }
-            minSlack = (minSlack == -1 ? 0 : minSlack);
+            minSlack = (minSlack == -1 ? Double.POSITIVE_INFINITY : minSlack);
             assertEquals(minSlack, ziRoundHeuristic.getSlackLB(j));
         }
     }
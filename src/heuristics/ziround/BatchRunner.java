@@ -0,0 +1,270 @@
+package heuristics.ziround;
+
+import ilog.concert.IloException;
+import org.jetbrains.annotations.NotNull;
+
+import javax.management.InvalidAttributeValueException;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Command line entry point: runs ZiRound on every model of a batch, in parallel, and appends the metrics of each
+ * instance to a CSV or JSON-lines file (see {@link MetricsWriter})
+ * <p>
+ * Usage:
+ * java heuristics.ziround.BatchRunner [options] input...
+ * <p>
+ * An input is a model file, a directory (its model files, not recursive) or a glob pattern such as
+ * {@code models/*.mps}
+ */
+public class BatchRunner {
+    /**
+     * Extensions of the files read by {@link ilog.cplex.IloCplex#importModel(String)}
+     */
+    private static final String[] MODEL_EXTENSIONS = {".mps", ".mps.gz", ".mps.bz2", ".lp", ".lp.gz", ".sav", ".sav.gz"};
+    private static final String USAGE = "Usage: BatchRunner [--workers n] [--threshold t] [--time-limit ms] "
+            + "[--max-sweeps n] [--max-shifts n] [--backend lp|root] [--output metrics.csv|metrics.jsonl] input...";
+
+    private int workers = 1;
+    private double threshold = 0.1;
+    private ZiRoundLimits limits = ZiRoundLimits.UNLIMITED;
+    private Backend backend = Backend.LP;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        BatchRunner runner = new BatchRunner();
+        List<String> inputs = new ArrayList<>();
+        Path output = Paths.get("ziround-metrics.csv");
+        long timeLimit = 0;
+        int maxSweeps = 0;
+        long maxShifts = 0;
+        try {
+            for (int a = 0; a < args.length; a++) {
+                switch (args[a]) {
+                    case "--workers":
+                        runner.setWorkers(Integer.parseInt(args[++a]));
+                        break;
+                    case "--threshold":
+                        runner.setThreshold(Double.parseDouble(args[++a]));
+                        break;
+                    case "--time-limit":
+                        timeLimit = Long.parseLong(args[++a]);
+                        break;
+                    case "--max-sweeps":
+                        maxSweeps = Integer.parseInt(args[++a]);
+                        break;
+                    case "--max-shifts":
+                        maxShifts = Long.parseLong(args[++a]);
+                        break;
+                    case "--backend":
+                        runner.setBackend(Backend.valueOf(args[++a].toUpperCase()));
+                        break;
+                    case "--output":
+                        output = Paths.get(args[++a]);
+                        break;
+                    default:
+                        inputs.add(args[a]);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        if (inputs.isEmpty()) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        runner.setLimits(new ZiRoundLimits(timeLimit, maxSweeps, maxShifts));
+
+        List<Path> instances = expandInputs(inputs);
+        try (MetricsWriter writer = new MetricsWriter(output, MetricsWriter.formatOf(output))) {
+            int failed = runner.run(instances, writer);
+            System.out.println(instances.size() + " instances, " + failed + " failed, metrics in " + output);
+        }
+    }
+
+    /**
+     * @param workers Number of instances processed at the same time, each one with its own CPLEX environment
+     */
+    public void setWorkers(int workers) {
+        if (workers <= 0)
+            throw new IllegalArgumentException("The workers must be positive");
+        this.workers = workers;
+    }
+
+    /**
+     * @param threshold threshold param for the ZiRound algorithm
+     */
+    public void setThreshold(double threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * @param limits Budgets of each ZiRound run
+     */
+    public void setLimits(@NotNull ZiRoundLimits limits) {
+        this.limits = limits;
+    }
+
+    /**
+     * @param backend How the relaxation is solved
+     */
+    public void setBackend(@NotNull Backend backend) {
+        this.backend = backend;
+    }
+
+    /**
+     * Files are kept as they are, directories give their model files and the other inputs are glob patterns
+     * matched against the files of their base directory and its subdirectories
+     *
+     * @param inputs Files, directories or glob patterns
+     * @return The model files, in the order of the inputs, without duplicates
+     */
+    public static List<Path> expandInputs(@NotNull List<String> inputs) throws IOException {
+        List<Path> instances = new ArrayList<>();
+        for (String input : inputs) {
+            Path path = Paths.get(input);
+            if (!hasGlob(input) && Files.isRegularFile(path)) {
+                add(instances, path);
+            } else if (!hasGlob(input) && Files.isDirectory(path)) {
+                try (Stream<Path> files = Files.list(path)) {
+                    files.filter(Files::isRegularFile).filter(BatchRunner::isModelFile).sorted()
+                            .forEach(file -> add(instances, file));
+                }
+            } else if (hasGlob(input)) {
+                //The base directory is the longest prefix without glob characters
+                int cut = input.lastIndexOf('/', firstGlob(input)) + 1;
+                Path base = Paths.get(cut == 0 ? "." : input.substring(0, cut));
+                PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + input.substring(cut));
+                if (Files.isDirectory(base)) {
+                    try (Stream<Path> files = Files.walk(base)) {
+                        files.filter(Files::isRegularFile).filter(file -> matcher.matches(base.relativize(file)))
+                                .sorted().forEach(file -> add(instances, file));
+                    }
+                }
+            } else
+                throw new NoSuchFileException(input);
+        }
+        return instances;
+    }
+
+    /**
+     * Processes the instances on {@code workers} threads, the metrics of each one are written as soon as it's done
+     *
+     * @param instances The model files
+     * @param writer    Receives a line for each instance
+     * @return The number of instances that failed with an error
+     */
+    public int run(@NotNull List<Path> instances, @NotNull MetricsWriter writer) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        int failed = 0;
+        try (CplexPool pool = new CplexPool(workers)) {
+            List<Future<MetricsWriter.Metrics>> futures = new ArrayList<>();
+            for (Path instance : instances)
+                futures.add(executor.submit(() -> {
+                    MetricsWriter.Metrics metrics = process(pool, instance);
+                    writer.write(metrics);
+                    return metrics;
+                }));
+            for (Future<MetricsWriter.Metrics> future : futures) {
+                try {
+                    if (future.get().getError() != null)
+                        failed++;
+                } catch (ExecutionException e) {
+                    //The metrics couldn't be written
+                    failed++;
+                    e.getCause().printStackTrace();
+                }
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        return failed;
+    }
+
+    /**
+     * Loads the model, solves the relaxation and rounds it
+     *
+     * @return The metrics of the instance, with the error message if a step failed
+     */
+    private MetricsWriter.Metrics process(CplexPool pool, Path instance) throws InterruptedException {
+        MetricsWriter.Metrics metrics = new MetricsWriter.Metrics(instance.toString());
+        long start = System.nanoTime();
+        try (Model model = Model.fromFile(pool, instance.toString())) {
+            ModelSnapshot snapshot = model.snapshot();
+            metrics.setLoadMillis(millisSince(start));
+
+            start = System.nanoTime();
+            double[] relaxed = backend == Backend.LP ? model.getLPSolutions() : model.getRelaxedSolutions();
+            metrics.setLpMillis(millisSince(start));
+            if (relaxed == null) {
+                metrics.setStatus("NO_RELAXATION");
+                return metrics;
+            }
+
+            start = System.nanoTime();
+            ZiRound ziRound = new ZiRound(snapshot, relaxed, threshold);
+            ziRound.setLimits(limits);
+            HeuristicResult result = ziRound.applyHeuristic();
+            metrics.setZiRoundMillis(millisSince(start));
+            metrics.setStatus(result.getStatus().name());
+            metrics.setSweeps(result.getSweeps());
+            metrics.setFractional(result.getFractionalCount());
+            FeasibilityReport report = new FeasibilityVerifier(snapshot).verify(result.getValues());
+            metrics.setFeasible(report.isFeasible());
+            metrics.setObjective(report.getObjectiveValue());
+        } catch (IloException | NumVariable.ValueOutOfBoundsException | InvalidAttributeValueException | RuntimeException e) {
+            metrics.setStatus("ERROR");
+            metrics.setError(e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+        return metrics;
+    }
+
+    private static long millisSince(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static boolean hasGlob(String input) {
+        return firstGlob(input) != -1;
+    }
+
+    private static int firstGlob(String input) {
+        for (int c = 0; c < input.length(); c++)
+            if ("*?[{".indexOf(input.charAt(c)) != -1)
+                return c;
+        return -1;
+    }
+
+    private static boolean isModelFile(Path path) {
+        String name = path.getFileName().toString().toLowerCase();
+        for (String extension : MODEL_EXTENSIONS)
+            if (name.endsWith(extension))
+                return true;
+        return false;
+    }
+
+    private static void add(List<Path> instances, Path path) {
+        Path normalized = path.normalize();
+        if (!instances.contains(normalized))
+            instances.add(normalized);
+    }
+
+    public enum Backend {
+        /**
+         * LP relaxation, the INT variables are converted to Float for the solve, see {@link Model#getLPSolutions()}
+         */
+        LP,
+        /**
+         * MIP solve stopped at the root node, see {@link Model#getRelaxedSolutions()}
+         */
+        ROOT
+    }
+}
@@ -0,0 +1,236 @@
+package heuristics.ziround;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Activity based bound propagation on a {@link ModelSnapshot}.
+ * <p>
+ * For every constraint the minimum and maximum activity over the current bounds are maintained incrementally, the
+ * infinite contributions are counted apart so that a single unbounded variable doesn't hide the others. When the
+ * bounds of a variable change, its constraints are queued and the bounds of the other variables in them are
+ * tightened; INT variables get their bounds rounded inwards.
+ * <p>
+ * The snapshot is only read, the working bounds are a private copy
+ */
+public class BoundPropagator {
+    private static final double FEASIBILITY_TOLERANCE = FeasibilityVerifier.DEFAULT_TOLERANCE;
+    /**
+     * Relative tightening below which a new bound isn't worth propagating
+     */
+    private static final double MIN_IMPROVEMENT = 1e-6;
+    /**
+     * Each call to {@link #propagate()} visits at most this many constraints for each constraint of the model
+     */
+    private static final int MAX_VISITS_PER_ROW = 20;
+
+    private final ModelSnapshot snapshot;
+    private final double integralityTolerance;
+    private final double[] lb;
+    private final double[] ub;
+    private final double[] minActivity;
+    private final double[] maxActivity;
+    private final int[] minInfinite;
+    private final int[] maxInfinite;
+
+    private final int[] queue;
+    private final boolean[] queued;
+    private int head;
+    private int size;
+
+    /**
+     * Loads the bounds of the snapshot, every constraint is queued for the first {@link #propagate()}
+     *
+     * @param snapshot The model to propagate
+     */
+    public BoundPropagator(@NotNull ModelSnapshot snapshot) {
+        this(snapshot, NumVariable.getIntegralityTolerance());
+    }
+
+    /**
+     * @param snapshot             The model to propagate
+     * @param integralityTolerance Slack allowed when the implied bounds of an INT variable are rounded
+     */
+    public BoundPropagator(@NotNull ModelSnapshot snapshot, double integralityTolerance) {
+        this.snapshot = snapshot;
+        this.integralityTolerance = integralityTolerance;
+        int nRows = snapshot.countRows();
+        lb = snapshot.getColLB().clone();
+        ub = snapshot.getColUB().clone();
+        minActivity = new double[nRows];
+        maxActivity = new double[nRows];
+        minInfinite = new int[nRows];
+        maxInfinite = new int[nRows];
+        queue = new int[nRows];
+        queued = new boolean[nRows];
+
+        int[] rowStart = snapshot.getRowStart();
+        int[] rowIndex = snapshot.getRowIndex();
+        double[] rowValue = snapshot.getRowValue();
+        for (int i = 0; i < nRows; i++) {
+            for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+                int j = rowIndex[k];
+                addContribution(i, rowValue[k], lb[j], ub[j], 1);
+            }
+            enqueue(i);
+        }
+    }
+
+    /**
+     * @return The current lower bounds, tightened by the propagation
+     */
+    public double[] getLB() {
+        return lb;
+    }
+
+    /**
+     * @return The current upper bounds, tightened by the propagation
+     */
+    public double[] getUB() {
+        return ub;
+    }
+
+    /**
+     * Fixes a variable and propagates the consequences
+     *
+     * @param j     Index of a variable
+     * @param value The value of the variable
+     * @return {@code False} if the fixing makes the model infeasible
+     */
+    public boolean fix(int j, double value) {
+        if (value < lb[j] - FEASIBILITY_TOLERANCE || value > ub[j] + FEASIBILITY_TOLERANCE)
+            return false;
+        changeBounds(j, value, value);
+        return propagate();
+    }
+
+    /**
+     * Processes the queued constraints until no bound changes anymore (or the work limit is hit)
+     *
+     * @return {@code False} if a constraint can't be satisfied or a variable has no value left in its bounds
+     */
+    public boolean propagate() {
+        int[] rowStart = snapshot.getRowStart();
+        int[] rowIndex = snapshot.getRowIndex();
+        double[] rowValue = snapshot.getRowValue();
+        double[] rowLB = snapshot.getRowLB();
+        double[] rowUB = snapshot.getRowUB();
+        long visits = (long) MAX_VISITS_PER_ROW * queue.length;
+
+        while (size > 0 && visits-- > 0) {
+            int i = dequeue();
+            double L = rowLB[i];
+            double U = rowUB[i];
+            if (minInfinite[i] == 0 && minActivity[i] > U + FEASIBILITY_TOLERANCE
+                    || maxInfinite[i] == 0 && maxActivity[i] < L - FEASIBILITY_TOLERANCE)
+                return false;
+
+            for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+                int j = rowIndex[k];
+                double a = rowValue[k];
+                if (lb[j] == ub[j])
+                    continue;
+                double newLB = lb[j];
+                double newUB = ub[j];
+                if (U < Double.POSITIVE_INFINITY) {
+                    double residual = residualMin(i, a, lb[j], ub[j]);
+                    if (residual > Double.NEGATIVE_INFINITY) {
+                        //a xj <= U - residual
+                        if (a > 0)
+                            newUB = Math.min(newUB, (U - residual) / a);
+                        else
+                            newLB = Math.max(newLB, (U - residual) / a);
+                    }
+                }
+                if (L > Double.NEGATIVE_INFINITY) {
+                    double residual = residualMax(i, a, lb[j], ub[j]);
+                    if (residual < Double.POSITIVE_INFINITY) {
+                        //a xj >= L - residual
+                        if (a > 0)
+                            newLB = Math.max(newLB, (L - residual) / a);
+                        else
+                            newUB = Math.min(newUB, (L - residual) / a);
+                    }
+                }
+                if (snapshot.isInteger(j)) {
+                    newLB = Math.ceil(newLB - integralityTolerance);
+                    newUB = Math.floor(newUB + integralityTolerance);
+                }
+                if (newLB > newUB + FEASIBILITY_TOLERANCE)
+                    return false;
+                boolean tighterLB = newLB > lb[j] + MIN_IMPROVEMENT * Math.max(1, Math.abs(lb[j]));
+                boolean tighterUB = newUB < ub[j] - MIN_IMPROVEMENT * Math.max(1, Math.abs(ub[j]));
+                if (tighterLB || tighterUB)
+                    changeBounds(j, tighterLB ? Math.min(newLB, ub[j]) : lb[j], tighterUB ? Math.max(newUB, lb[j]) : ub[j]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The minimum activity of row i without the contribution of the variable with multiplier a
+     */
+    private double residualMin(int i, double a, double lbj, double ubj) {
+        double contribution = a > 0 ? a * lbj : a * ubj;
+        if (Double.isInfinite(contribution))
+            return minInfinite[i] == 1 ? minActivity[i] : Double.NEGATIVE_INFINITY;
+        return minInfinite[i] == 0 ? minActivity[i] - contribution : Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * @return The maximum activity of row i without the contribution of the variable with multiplier a
+     */
+    private double residualMax(int i, double a, double lbj, double ubj) {
+        double contribution = a > 0 ? a * ubj : a * lbj;
+        if (Double.isInfinite(contribution))
+            return maxInfinite[i] == 1 ? maxActivity[i] : Double.POSITIVE_INFINITY;
+        return maxInfinite[i] == 0 ? maxActivity[i] - contribution : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Replaces the bounds of a variable, updating the activities of its constraints and queuing them
+     */
+    private void changeBounds(int j, double newLB, double newUB) {
+        int[] colStart = snapshot.getColStart();
+        int[] colIndex = snapshot.getColIndex();
+        double[] colValue = snapshot.getColValue();
+        for (int k = colStart[j]; k < colStart[j + 1]; k++) {
+            int i = colIndex[k];
+            addContribution(i, colValue[k], lb[j], ub[j], -1);
+            addContribution(i, colValue[k], newLB, newUB, 1);
+            enqueue(i);
+        }
+        lb[j] = newLB;
+        ub[j] = newUB;
+    }
+
+    /**
+     * @param sign 1 to add the contribution of a variable to the activities of row i, -1 to remove it
+     */
+    private void addContribution(int i, double a, double lbj, double ubj, int sign) {
+        double min = a > 0 ? a * lbj : a * ubj;
+        double max = a > 0 ? a * ubj : a * lbj;
+        if (Double.isInfinite(min))
+            minInfinite[i] += sign;
+        else
+            minActivity[i] += sign * min;
+        if (Double.isInfinite(max))
+            maxInfinite[i] += sign;
+        else
+            maxActivity[i] += sign * max;
+    }
+
+    private void enqueue(int i) {
+        if (!queued[i]) {
+            queued[i] = true;
+            queue[(head + size++) % queue.length] = i;
+        }
+    }
+
+    private int dequeue() {
+        int i = queue[head];
+        head = (head + 1) % queue.length;
+        size--;
+        queued[i] = false;
+        return i;
+    }
+}
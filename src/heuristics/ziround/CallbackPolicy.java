@@ -0,0 +1,103 @@
+package heuristics.ziround;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides when {@link ZiRoundCallback} runs and which of its roundings are handed to CPLEX, without depending on
+ * CPLEX so that the rules can be tested on their own.
+ * <p>
+ * CPLEX calls a heuristic callback after every round of cuts, so a node is usually seen more than once: ZiRound
+ * runs at most once for each value of the node count, the first time it's seen. Thread safe
+ */
+public class CallbackPolicy {
+    public static final long DEFAULT_NODE_FREQUENCY = 10;
+
+    private final Model.ObjType objType;
+    private volatile long nodeFrequency = DEFAULT_NODE_FREQUENCY;
+    private volatile long runTimeLimitMillis;
+    private volatile long totalTimeLimitMillis;
+
+    /**
+     * Highest node count at which a run started, -1 before the first run
+     */
+    private final AtomicLong lastNode = new AtomicLong(-1);
+    private final AtomicLong elapsedNanos = new AtomicLong();
+
+    /**
+     * @param objType The direction of the objective, to compare the roundings with the incumbent
+     */
+    public CallbackPolicy(@NotNull Model.ObjType objType) {
+        this.objType = objType;
+    }
+
+    /**
+     * @param nodeFrequency ZiRound runs at one node every {@code nodeFrequency}, the root included
+     */
+    public void setNodeFrequency(long nodeFrequency) {
+        this.nodeFrequency = Math.max(1, nodeFrequency);
+    }
+
+    /**
+     * @param runTimeLimitMillis   Time limit of each run, <= 0 for no limit
+     * @param totalTimeLimitMillis Once the runs took this much time in total nothing runs, <= 0 for no limit
+     */
+    public void setTimeLimits(long runTimeLimitMillis, long totalTimeLimitMillis) {
+        this.runTimeLimitMillis = runTimeLimitMillis;
+        this.totalTimeLimitMillis = totalTimeLimitMillis;
+    }
+
+    /**
+     * Claims the node: a call that returns {@code true} must be followed by a run
+     *
+     * @param node The number of nodes processed so far, 0 at the root
+     * @return {@code True} if ZiRound has to run now
+     */
+    public boolean shouldRun(long node) {
+        if (node % nodeFrequency != 0)
+            return false;
+        if (totalTimeLimitMillis > 0 && elapsedNanos.get() >= totalTimeLimitMillis * 1_000_000)
+            return false;
+        long last;
+        do {
+            last = lastNode.get();
+            if (node <= last)
+                return false;
+        } while (!lastNode.compareAndSet(last, node));
+        return true;
+    }
+
+    /**
+     * @return The budget of a single run
+     */
+    public ZiRoundLimits getRunLimits() {
+        return new ZiRoundLimits(runTimeLimitMillis, 0, 0);
+    }
+
+    /**
+     * @param nanos Time spent by a run, counted against the total time limit
+     */
+    public void addElapsedNanos(long nanos) {
+        elapsedNanos.addAndGet(nanos);
+    }
+
+    /**
+     * @return Total time spent in the runs
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos.get();
+    }
+
+    /**
+     * @param objective    Objective value of a feasible rounding
+     * @param hasIncumbent {@code True} if CPLEX has an incumbent
+     * @param incumbent    Objective value of the incumbent, ignored without one
+     * @return {@code True} if the rounding has to be handed to CPLEX
+     */
+    public boolean shouldInject(double objective, boolean hasIncumbent, double incumbent) {
+        if (!hasIncumbent)
+            return true;
+        return objType == Model.ObjType.MIN ? objective < incumbent : objective > incumbent;
+    }
+}
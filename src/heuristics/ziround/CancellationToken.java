@@ -0,0 +1,25 @@
+package heuristics.ziround;
+
+/**
+ * Cooperative cancellation flag shared between a running heuristic and whoever started it.
+ * <p>
+ * The heuristic only polls the flag between sweeps, so cancelling is cheap for both sides
+ * and never leaves the solution in an inconsistent state.
+ */
+public class CancellationToken {
+    private volatile boolean cancelled;
+
+    /**
+     * Requests the cancellation of every run that observes this token
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @return {@code True} if {@link #cancel()} has been called, {@code False} otherwise
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,216 @@
+package heuristics.ziround;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Splits a {@link ModelSnapshot} into independent blocks: the connected components of the bipartite graph of
+ * variables and constraints, found with a union-find over the sparse rows. The members of a SOS set are kept in
+ * the same component.
+ * <p>
+ * Variables that appear in no constraint are gathered in a single component, so that they don't produce many
+ * trivial blocks. Constraints without variables belong to no component
+ */
+public class ComponentDecomposition {
+    private final ModelSnapshot snapshot;
+    private final int[] columnStart;
+    private final int[] columns;
+    private final int[] rowStart;
+    private final int[] rows;
+
+    /**
+     * @param snapshot The model to decompose
+     */
+    public ComponentDecomposition(@NotNull ModelSnapshot snapshot) {
+        this.snapshot = snapshot;
+        int nCols = snapshot.countColumns();
+        int nRows = snapshot.countRows();
+        int[] sparseStart = snapshot.getRowStart();
+        int[] sparseIndex = snapshot.getRowIndex();
+
+        int[] parent = new int[nCols];
+        for (int j = 0; j < nCols; j++)
+            parent[j] = j;
+        for (int i = 0; i < nRows; i++)
+            for (int k = sparseStart[i] + 1; k < sparseStart[i + 1]; k++)
+                union(parent, sparseIndex[sparseStart[i]], sparseIndex[k]);
+        int[] sosStart = snapshot.getSOSStart();
+        int[] sosIndex = snapshot.getSOSIndex();
+        boolean[] inSOS = new boolean[nCols];
+        for (int s = 0; s < snapshot.countSOS(); s++) {
+            for (int k = sosStart[s]; k < sosStart[s + 1]; k++) {
+                inSOS[sosIndex[k]] = true;
+                union(parent, sosIndex[sosStart[s]], sosIndex[k]);
+            }
+        }
+
+        //Components are numbered by their first column, the isolated columns share the last number
+        boolean[] isolated = new boolean[nCols];
+        int[] colStart = snapshot.getColStart();
+        boolean hasIsolated = false;
+        for (int j = 0; j < nCols; j++) {
+            isolated[j] = colStart[j] == colStart[j + 1] && !inSOS[j];
+            hasIsolated |= isolated[j];
+        }
+        int[] component = new int[nCols];
+        int count = 0;
+        for (int j = 0; j < nCols; j++)
+            if (!isolated[j] && find(parent, j) == j)
+                component[j] = count++;
+        int isolatedComponent = count;
+        if (hasIsolated)
+            count++;
+        for (int j = 0; j < nCols; j++)
+            component[j] = isolated[j] ? isolatedComponent : component[find(parent, j)];
+
+        //Counting sort of columns and rows by component, indexes stay increasing inside a component
+        columnStart = new int[count + 1];
+        columns = new int[nCols];
+        for (int j = 0; j < nCols; j++)
+            columnStart[component[j] + 1]++;
+        for (int c = 0; c < count; c++)
+            columnStart[c + 1] += columnStart[c];
+        int[] next = columnStart.clone();
+        for (int j = 0; j < nCols; j++)
+            columns[next[component[j]]++] = j;
+
+        rowStart = new int[count + 1];
+        int assignedRows = 0;
+        for (int i = 0; i < nRows; i++) {
+            if (sparseStart[i] < sparseStart[i + 1]) {
+                rowStart[component[sparseIndex[sparseStart[i]]] + 1]++;
+                assignedRows++;
+            }
+        }
+        for (int c = 0; c < count; c++)
+            rowStart[c + 1] += rowStart[c];
+        rows = new int[assignedRows];
+        next = rowStart.clone();
+        for (int i = 0; i < nRows; i++)
+            if (sparseStart[i] < sparseStart[i + 1])
+                rows[next[component[sparseIndex[sparseStart[i]]]]++] = i;
+    }
+
+    private static int find(int[] parent, int j) {
+        while (parent[j] != j) {
+            //Path halving
+            parent[j] = parent[parent[j]];
+            j = parent[j];
+        }
+        return j;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        //The smaller index becomes the root, so that components are numbered by their first column
+        if (rootA < rootB)
+            parent[rootB] = rootA;
+        else if (rootB < rootA)
+            parent[rootA] = rootB;
+    }
+
+    public int countComponents() {
+        return columnStart.length - 1;
+    }
+
+    /**
+     * @param c Index of a component
+     * @return The variables of the component, in increasing order
+     */
+    public int[] getColumns(int c) {
+        int[] result = new int[columnStart[c + 1] - columnStart[c]];
+        System.arraycopy(columns, columnStart[c], result, 0, result.length);
+        return result;
+    }
+
+    /**
+     * @param c Index of a component
+     * @return The constraints of the component, in increasing order
+     */
+    public int[] getRows(int c) {
+        int[] result = new int[rowStart[c + 1] - rowStart[c]];
+        System.arraycopy(rows, rowStart[c], result, 0, result.length);
+        return result;
+    }
+
+    /**
+     * @param c Index of a component
+     * @return A snapshot with the variables and constraints of the component only, variable k of the result is
+     * {@code getColumns(c)[k]}
+     */
+    public ModelSnapshot extract(int c) {
+        int[] cols = getColumns(c);
+        int[] blockRows = getRows(c);
+        int[] local = new int[snapshot.countColumns()];
+        double[] lb = new double[cols.length];
+        double[] ub = new double[cols.length];
+        boolean[] integer = new boolean[cols.length];
+        double[] objective = new double[cols.length];
+        for (int k = 0; k < cols.length; k++) {
+            int j = cols[k];
+            local[j] = k;
+            lb[k] = snapshot.getColLB()[j];
+            ub[k] = snapshot.getColUB()[j];
+            integer[k] = snapshot.isInteger(j);
+            objective[k] = snapshot.getObjective()[j];
+        }
+
+        int[] sparseStart = snapshot.getRowStart();
+        int[] sparseIndex = snapshot.getRowIndex();
+        double[] sparseValue = snapshot.getRowValue();
+        int nnz = 0;
+        for (int i : blockRows)
+            nnz += sparseStart[i + 1] - sparseStart[i];
+        double[] rowLB = new double[blockRows.length];
+        double[] rowUB = new double[blockRows.length];
+        int[] blockStart = new int[blockRows.length + 1];
+        int[] blockIndex = new int[nnz];
+        double[] blockValue = new double[nnz];
+        int p = 0;
+        for (int r = 0; r < blockRows.length; r++) {
+            int i = blockRows[r];
+            rowLB[r] = snapshot.getRowLB()[i];
+            rowUB[r] = snapshot.getRowUB()[i];
+            for (int k = sparseStart[i]; k < sparseStart[i + 1]; k++) {
+                blockIndex[p] = local[sparseIndex[k]];
+                blockValue[p++] = sparseValue[k];
+            }
+            blockStart[r + 1] = p;
+        }
+        //A set belongs to the component of its members
+        int[] sosStart = snapshot.getSOSStart();
+        int[] sosIndex = snapshot.getSOSIndex();
+        int sets = 0;
+        int members = 0;
+        for (int s = 0; s < snapshot.countSOS(); s++) {
+            if (sosStart[s] < sosStart[s + 1] && contains(cols, sosIndex[sosStart[s]])) {
+                sets++;
+                members += sosStart[s + 1] - sosStart[s];
+            }
+        }
+        int[] blockSOSType = new int[sets];
+        int[] blockSOSStart = new int[sets + 1];
+        int[] blockSOSIndex = new int[members];
+        int t = 0;
+        p = 0;
+        for (int s = 0; s < snapshot.countSOS(); s++) {
+            if (sosStart[s] < sosStart[s + 1] && contains(cols, sosIndex[sosStart[s]])) {
+                blockSOSType[t] = snapshot.getSOSType()[s];
+                for (int k = sosStart[s]; k < sosStart[s + 1]; k++)
+                    blockSOSIndex[p++] = local[sosIndex[k]];
+                blockSOSStart[++t] = p;
+            }
+        }
+        return new ModelSnapshot(lb, ub, integer, objective, snapshot.getObjType(),
+                rowLB, rowUB, blockStart, blockIndex, blockValue, blockSOSType, blockSOSStart, blockSOSIndex);
+    }
+
+    /**
+     * @param sorted Indexes in increasing order
+     */
+    private static boolean contains(int[] sorted, int j) {
+        return Arrays.binarySearch(sorted, j) >= 0;
+    }
+}
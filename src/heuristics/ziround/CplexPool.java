@@ -0,0 +1,157 @@
+package heuristics.ziround;
+
+import ilog.concert.IloException;
+import ilog.cplex.IloCplex;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of reusable {@link IloCplex} environments: at most {@code capacity} environments exist at the same
+ * time, a released environment is cleared (model, callbacks and parameters) and handed to the next model.
+ * <p>
+ * CPLEX allocates its memory outside the Java heap and doesn't report it, the pool keeps an estimate of the
+ * memory used by the models it holds (see {@link Model#estimateNativeBytes()})
+ */
+public class CplexPool implements AutoCloseable {
+    private final Semaphore permits;
+    private final ConcurrentLinkedQueue<IloCplex> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger live = new AtomicInteger();
+    private final AtomicLong nativeBytes = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * @param capacity Maximum number of environments alive at the same time
+     */
+    public CplexPool(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("The capacity of the pool must be positive");
+        permits = new Semaphore(capacity, true);
+    }
+
+    /**
+     * Takes an idle environment, creates a new one if none is idle, waits if {@code capacity} environments are in use
+     *
+     * @return An empty environment, to be given back with {@link #release(IloCplex)}
+     * @throws InterruptedException  If the thread is interrupted while waiting
+     * @throws IllegalStateException If the pool is closed, also while waiting
+     */
+    public IloCplex acquire() throws InterruptedException, IloException {
+        if (closed)
+            throw new IllegalStateException("The pool is closed");
+        permits.acquire();
+        IloCplex cplex;
+        //The pool may have been closed while waiting, checked under the lock of close
+        synchronized (this) {
+            if (closed) {
+                permits.release();
+                throw new IllegalStateException("The pool is closed");
+            }
+            cplex = idle.poll();
+        }
+        if (cplex == null) {
+            try {
+                cplex = new IloCplex();
+            } catch (IloException | RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+            created.incrementAndGet();
+            live.incrementAndGet();
+            //Environments are created outside the lock, close may have run in the meantime
+            synchronized (this) {
+                if (closed) {
+                    end(cplex);
+                    permits.release();
+                    throw new IllegalStateException("The pool is closed");
+                }
+            }
+        }
+        return cplex;
+    }
+
+    /**
+     * Clears the environment and makes it available again, an environment that can't be cleared is ended.
+     * <p>
+     * The parameters (e.g. the node limit of a root solve) and the callbacks of the last model are reset, so they
+     * don't leak to the next one
+     *
+     * @param cplex An environment returned by {@link #acquire()}
+     */
+    public void release(IloCplex cplex) {
+        try {
+            cplex.clearModel();
+            cplex.clearCallbacks();
+            cplex.setDefaults();
+            //Checked under the lock of close, so that an environment can't be queued after the last drain
+            synchronized (this) {
+                if (closed)
+                    end(cplex);
+                else
+                    idle.add(cplex);
+            }
+        } catch (IloException e) {
+            e.printStackTrace();
+            end(cplex);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Ends the idle environments, the ones in use are ended when released
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        IloCplex cplex;
+        while ((cplex = idle.poll()) != null)
+            end(cplex);
+    }
+
+    private void end(IloCplex cplex) {
+        cplex.end();
+        live.decrementAndGet();
+    }
+
+    /**
+     * @param delta Change of the native memory used by the models of the pool
+     */
+    void addNativeBytes(long delta) {
+        nativeBytes.addAndGet(delta);
+    }
+
+    /**
+     * @return Estimate of the native memory used by the models currently loaded in the environments of the pool
+     */
+    public long getNativeBytes() {
+        return nativeBytes.get();
+    }
+
+    /**
+     * @return Environments created since the pool was built
+     */
+    public int getCreated() {
+        return created.get();
+    }
+
+    /**
+     * @return Environments not ended yet, idle or in use
+     */
+    public int getLive() {
+        return live.get();
+    }
+
+    public int getIdle() {
+        return idle.size();
+    }
+
+    @Override
+    public String toString() {
+        return "CplexPool{live=" + getLive() + ", idle=" + getIdle() + ", created=" + getCreated()
+                + ", nativeBytes~" + getNativeBytes() + "}";
+    }
+}
@@ -0,0 +1,143 @@
+package heuristics.ziround;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.management.InvalidAttributeValueException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Runs {@link ZiRound} independently on each block of a {@link ComponentDecomposition}, the blocks are rounded
+ * concurrently and their solutions merged.
+ * <p>
+ * The result of each block is kept, so that only the blocks that failed can be run again with different settings
+ */
+public class DecomposedZiRound {
+    private final ModelSnapshot snapshot;
+    private final double[] relaxedSolutions;
+    private final double threshold;
+    private final ComponentDecomposition decomposition;
+    private final HeuristicResult[] componentResults;
+    private final double[] x;
+
+    /**
+     * @param snapshot         The model to round
+     * @param relaxedSolutions A solution of the relaxed model
+     * @param threshold        threshold param for the ZiRound algorithm
+     */
+    public DecomposedZiRound(@NotNull ModelSnapshot snapshot, @NotNull double[] relaxedSolutions, double threshold) {
+        this.snapshot = snapshot;
+        this.relaxedSolutions = relaxedSolutions;
+        this.threshold = threshold;
+        this.decomposition = new ComponentDecomposition(snapshot);
+        this.componentResults = new HeuristicResult[decomposition.countComponents()];
+        this.x = relaxedSolutions.clone();
+    }
+
+    public ComponentDecomposition getDecomposition() {
+        return decomposition;
+    }
+
+    /**
+     * @param c Index of a component
+     * @return The result of the last run of the component, {@code null} if it never completed
+     */
+    public HeuristicResult getComponentResult(int c) {
+        return componentResults[c];
+    }
+
+    /**
+     * Rounds every component
+     *
+     * @param threads      Number of components rounded at the same time
+     * @param configurator Applies the settings of the runs (limits, extensions...), can be {@code null}
+     * @return The merged result, {@link HeuristicResult.Status#SOLVED} only if every component was solved
+     * @throws InterruptedException If the calling thread is interrupted while waiting
+     */
+    public HeuristicResult run(int threads, Consumer<ZiRound> configurator) throws InterruptedException,
+            InvalidAttributeValueException, NumVariable.ValueOutOfBoundsException {
+        return run(threads, configurator, false);
+    }
+
+    /**
+     * Rounds again only the components that weren't solved by the previous runs
+     *
+     * @see #run(int, Consumer)
+     */
+    public HeuristicResult rerunFailed(int threads, Consumer<ZiRound> configurator) throws InterruptedException,
+            InvalidAttributeValueException, NumVariable.ValueOutOfBoundsException {
+        return run(threads, configurator, true);
+    }
+
+    private HeuristicResult run(int threads, Consumer<ZiRound> configurator, boolean failedOnly) throws InterruptedException,
+            InvalidAttributeValueException, NumVariable.ValueOutOfBoundsException {
+        long startTime = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Integer> submitted = new ArrayList<>();
+        List<Future<HeuristicResult>> futures = new ArrayList<>();
+        for (int c = 0; c < componentResults.length; c++) {
+            if (failedOnly && componentResults[c] != null && componentResults[c].isSolved())
+                continue;
+            int[] columns = decomposition.getColumns(c);
+            int component = c;
+            submitted.add(c);
+            futures.add(executor.submit(() -> {
+                double[] start = new double[columns.length];
+                for (int k = 0; k < columns.length; k++)
+                    start[k] = relaxedSolutions[columns[k]];
+                ZiRound ziRound = new ZiRound(decomposition.extract(component), start, threshold);
+                if (configurator != null)
+                    configurator.accept(ziRound);
+                return ziRound.applyHeuristic();
+            }));
+        }
+
+        try {
+            for (int f = 0; f < futures.size(); f++) {
+                int c = submitted.get(f);
+                try {
+                    componentResults[c] = futures.get(f).get();
+                    int[] columns = decomposition.getColumns(c);
+                    double[] values = componentResults[c].getValues();
+                    for (int k = 0; k < columns.length; k++)
+                        x[columns[k]] = values[k];
+                } catch (ExecutionException e) {
+                    e.printStackTrace();
+                    //The other components are still valid
+                    componentResults[c] = null;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return merge(System.nanoTime() - startTime);
+    }
+
+    /**
+     * The merged status is the one of the first component that wasn't solved, INFEASIBLE components come first
+     */
+    private HeuristicResult merge(long elapsedNanos) throws InvalidAttributeValueException, NumVariable.ValueOutOfBoundsException {
+        HeuristicResult.Status status = HeuristicResult.Status.SOLVED;
+        int sweeps = 0;
+        long shifts = 0;
+        for (HeuristicResult result : componentResults) {
+            if (result == null) {
+                if (status == HeuristicResult.Status.SOLVED)
+                    status = HeuristicResult.Status.STALLED;
+                continue;
+            }
+            sweeps = Math.max(sweeps, result.getSweeps());
+            shifts += result.getShifts();
+            if (result.getStatus() == HeuristicResult.Status.INFEASIBLE)
+                status = HeuristicResult.Status.INFEASIBLE;
+            else if (status == HeuristicResult.Status.SOLVED)
+                status = result.getStatus();
+        }
+        int fractionalCount = ZiRound.countFractional(x, snapshot.getIntegerColumns());
+        if (fractionalCount != 0 && status == HeuristicResult.Status.SOLVED)
+            status = HeuristicResult.Status.STALLED;
+        return new HeuristicResult(status, snapshot.toNumVariables(x), x.clone(), fractionalCount, sweeps, shifts, elapsedNanos);
+    }
+}
@@ -0,0 +1,82 @@
+package heuristics.ziround;
+
+/**
+ * Result of {@link FeasibilityVerifier#verify(double[])}
+ */
+public class FeasibilityReport {
+    private final double maxViolation;
+    private final int violatedRows;
+    private final int violatedBounds;
+    private final int fractionalIntegers;
+    private final int violatedSOS;
+    private final double objectiveValue;
+    private final double tolerance;
+    private final long elapsedNanos;
+
+    /**
+     * @param maxViolation       Largest absolute violation over constraints, bounds and integrality
+     * @param violatedRows       Number of constraints violated by more than the tolerance
+     * @param violatedBounds     Number of variables out of their bounds by more than the tolerance
+     * @param fractionalIntegers Number of INT variables farther than the tolerance from an integer
+     * @param violatedSOS        Number of SOS sets with too many non zero members, or two that aren't consecutive
+     * @param objectiveValue     Value of the objective function
+     * @param tolerance          Tolerance used by the verification
+     * @param elapsedNanos       Time spent verifying
+     */
+    public FeasibilityReport(double maxViolation, int violatedRows, int violatedBounds, int fractionalIntegers,
+                             int violatedSOS, double objectiveValue, double tolerance, long elapsedNanos) {
+        this.maxViolation = maxViolation;
+        this.violatedRows = violatedRows;
+        this.violatedBounds = violatedBounds;
+        this.fractionalIntegers = fractionalIntegers;
+        this.violatedSOS = violatedSOS;
+        this.objectiveValue = objectiveValue;
+        this.tolerance = tolerance;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return {@code True} if nothing is violated by more than the tolerance
+     */
+    public boolean isFeasible() {
+        return violatedRows == 0 && violatedBounds == 0 && fractionalIntegers == 0 && violatedSOS == 0;
+    }
+
+    public double getMaxViolation() {
+        return maxViolation;
+    }
+
+    public int getViolatedRows() {
+        return violatedRows;
+    }
+
+    public int getViolatedBounds() {
+        return violatedBounds;
+    }
+
+    public int getFractionalIntegers() {
+        return fractionalIntegers;
+    }
+
+    public int getViolatedSOS() {
+        return violatedSOS;
+    }
+
+    public double getObjectiveValue() {
+        return objectiveValue;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return (isFeasible() ? "FEASIBLE" : "INFEASIBLE") + " obj=" + objectiveValue + " maxViolation=" + maxViolation
+                + " rows=" + violatedRows + " bounds=" + violatedBounds + " fractional=" + fractionalIntegers + " sos=" + violatedSOS;
+    }
+}
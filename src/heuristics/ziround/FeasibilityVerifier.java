@@ -0,0 +1,119 @@
+package heuristics.ziround;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.stream.IntStream;
+
+/**
+ * Checks a complete solution against every constraint, bound, integrality requirement and SOS set of a
+ * {@link ModelSnapshot}.
+ * <p>
+ * All the row activities are computed in a single pass over the CSR matrix; on large models the rows are split in
+ * blocks that are verified in parallel on the common fork-join pool
+ */
+public class FeasibilityVerifier {
+    public static final double DEFAULT_TOLERANCE = 1e-6;
+
+    /**
+     * Below this number of non zeros a sequential pass is faster than forking
+     */
+    private static final int PARALLEL_NON_ZEROS = 1 << 16;
+    private static final int BLOCK_ROWS = 4096;
+
+    private final ModelSnapshot snapshot;
+    private final double tolerance;
+
+    /**
+     * @param snapshot The model the solutions belong to
+     */
+    public FeasibilityVerifier(@NotNull ModelSnapshot snapshot) {
+        this(snapshot, DEFAULT_TOLERANCE);
+    }
+
+    /**
+     * @param snapshot  The model the solutions belong to
+     * @param tolerance Absolute violation accepted on constraints, bounds and integrality, a member of a SOS set
+     *                  within the tolerance counts as zero
+     */
+    public FeasibilityVerifier(@NotNull ModelSnapshot snapshot, double tolerance) {
+        this.snapshot = snapshot;
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * @param x A value for each variable of the snapshot
+     * @return The violations found and the objective value of {@code x}
+     */
+    public FeasibilityReport verify(@NotNull double[] x) {
+        long startTime = System.nanoTime();
+        int nRows = snapshot.countRows();
+        int nBlocks = (nRows + BLOCK_ROWS - 1) / BLOCK_ROWS;
+        double[] blockMax = new double[nBlocks];
+        int[] blockViolated = new int[nBlocks];
+
+        IntStream blocks = IntStream.range(0, nBlocks);
+        if (snapshot.countNonZeros() >= PARALLEL_NON_ZEROS)
+            blocks = blocks.parallel();
+        blocks.forEach(b -> verifyRows(x, b, blockMax, blockViolated));
+
+        double maxViolation = 0;
+        int violatedRows = 0;
+        for (int b = 0; b < nBlocks; b++) {
+            maxViolation = Math.max(maxViolation, blockMax[b]);
+            violatedRows += blockViolated[b];
+        }
+
+        double[] colLB = snapshot.getColLB();
+        double[] colUB = snapshot.getColUB();
+        int violatedBounds = 0;
+        int fractionalIntegers = 0;
+        for (int j = 0; j < x.length; j++) {
+            double violation = Math.max(colLB[j] - x[j], x[j] - colUB[j]);
+            if (violation > tolerance)
+                violatedBounds++;
+            maxViolation = Math.max(maxViolation, violation);
+            if (snapshot.isInteger(j)) {
+                double zi = ZiRound.computeZI(x[j]);
+                if (zi > tolerance)
+                    fractionalIntegers++;
+                maxViolation = Math.max(maxViolation, zi);
+            }
+        }
+
+        int violatedSOS = 0;
+        for (int s = 0; s < snapshot.countSOS(); s++)
+            if (snapshot.isSOSViolated(s, x, tolerance))
+                violatedSOS++;
+
+        return new FeasibilityReport(maxViolation, violatedRows, violatedBounds, fractionalIntegers, violatedSOS,
+                snapshot.getObjectiveValue(x), tolerance, System.nanoTime() - startTime);
+    }
+
+    /**
+     * @param x             A value for each variable
+     * @param block         Index of the block of rows to verify
+     * @param blockMax      Receives the maximum violation of the block
+     * @param blockViolated Receives the number of violated rows of the block
+     */
+    private void verifyRows(double[] x, int block, double[] blockMax, int[] blockViolated) {
+        ZiKernels kernels = ZiKernels.getInstance();
+        int[] rowStart = snapshot.getRowStart();
+        int[] rowIndex = snapshot.getRowIndex();
+        double[] rowValue = snapshot.getRowValue();
+        double[] rowLB = snapshot.getRowLB();
+        double[] rowUB = snapshot.getRowUB();
+        int to = Math.min(snapshot.countRows(), (block + 1) * BLOCK_ROWS);
+        double max = 0;
+        int violated = 0;
+        for (int i = block * BLOCK_ROWS; i < to; i++) {
+            double activity = kernels.sparseDot(rowIndex, rowValue, rowStart[i], rowStart[i + 1], x);
+            double violation = Math.max(rowLB[i] - activity, activity - rowUB[i]);
+            if (violation > tolerance)
+                violated++;
+            if (violation > max)
+                max = violation;
+        }
+        blockMax[block] = max;
+        blockViolated[block] = violated;
+    }
+}
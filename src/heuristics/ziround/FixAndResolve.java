@@ -0,0 +1,132 @@
+package heuristics.ziround;
+
+import ilog.concert.IloException;
+import org.jetbrains.annotations.NotNull;
+
+import javax.management.InvalidAttributeValueException;
+import java.util.function.Consumer;
+
+/**
+ * Repair and improvement stage after {@link ZiRound}: the INT variables that are integer are fixed in the solver,
+ * the LP relaxation is re-optimized so that the REAL variables adapt to the fixings, and ZiRound runs again on the
+ * variables that are still fractional. The rounds go on until every INT variable is fixed, no new variable gets
+ * integer or the LP becomes infeasible.
+ * <p>
+ * The bounds of the model are restored at the end, the snapshot of the model is never changed
+ */
+public class FixAndResolve {
+    public static final int DEFAULT_MAX_ROUNDS = 5;
+
+    private final Model model;
+    private final double threshold;
+    private final Consumer<ZiRound> configurator;
+    private int maxRounds = DEFAULT_MAX_ROUNDS;
+
+    /**
+     * @param model        The model to re-optimize, the same the rounded solution comes from
+     * @param threshold    threshold param of the ZiRound runs on the residual fractional variables
+     * @param configurator Applies the settings of the ZiRound runs (limits, extensions...), can be {@code null}
+     */
+    public FixAndResolve(@NotNull Model model, double threshold, Consumer<ZiRound> configurator) {
+        this.model = model;
+        this.threshold = threshold;
+        this.configurator = configurator;
+    }
+
+    /**
+     * @param maxRounds Maximum number of LP solves, {@link #DEFAULT_MAX_ROUNDS} by default
+     */
+    public void setMaxRounds(int maxRounds) {
+        this.maxRounds = maxRounds;
+    }
+
+    /**
+     * @param rounded A (possibly partial) rounding, e.g. {@link HeuristicResult#getValues()} of a ZiRound run
+     * @return {@link HeuristicResult.Status#SOLVED} with the re-optimized solution if every INT variable could be
+     * fixed, {@link HeuristicResult.Status#INFEASIBLE} if the fixings make the LP infeasible. The sweeps of the
+     * result are the LP solves, the shifts the fixed variables
+     */
+    public HeuristicResult apply(@NotNull double[] rounded) throws IloException, InvalidAttributeValueException, NumVariable.ValueOutOfBoundsException {
+        long startTime = System.nanoTime();
+        ModelSnapshot snapshot = model.snapshot();
+        int[] integerColumns = snapshot.getIntegerColumns();
+        double[] colLB = snapshot.getColLB();
+        double[] colUB = snapshot.getColUB();
+        boolean[] fixed = new boolean[snapshot.countColumns()];
+        double[] x = rounded.clone();
+        int rounds = 0;
+        long fixings = 0;
+        HeuristicResult.Status status = null;
+
+        try {
+            while (status == null) {
+                int newlyFixed = 0;
+                for (int j : integerColumns) {
+                    if (!fixed[j] && ZiRound.computeZI(x[j]) == 0) {
+                        double value = Math.rint(x[j]);
+                        model.setBounds(j, value, value);
+                        fixed[j] = true;
+                        newlyFixed++;
+                    }
+                }
+                fixings += newlyFixed;
+                if (newlyFixed == 0 && rounds > 0) {
+                    status = HeuristicResult.Status.STALLED;
+                    break;
+                }
+                if (rounds == maxRounds) {
+                    status = HeuristicResult.Status.SWEEP_LIMIT;
+                    break;
+                }
+
+                rounds++;
+                double[] lp = model.getLPSolutions();
+                if (lp == null) {
+                    status = HeuristicResult.Status.INFEASIBLE;
+                    break;
+                }
+                //The solver can return values out of the bounds by its feasibility tolerance
+                x = new double[lp.length];
+                for (int j = 0; j < x.length; j++)
+                    x[j] = fixed[j] ? Math.rint(lp[j]) : Math.max(colLB[j], Math.min(colUB[j], lp[j]));
+
+                int[] residual = residual(integerColumns, fixed, x);
+                if (residual.length == 0) {
+                    status = HeuristicResult.Status.SOLVED;
+                    break;
+                }
+                //The residual fractional variables are rounded on the new LP solution
+                ZiRound ziRound = new ZiRound(snapshot, x, threshold);
+                if (configurator != null)
+                    configurator.accept(ziRound);
+                ziRound.setIntegerSolutions(residual);
+                x = ziRound.applyHeuristic().getValues();
+            }
+        } finally {
+            for (int j : integerColumns)
+                if (fixed[j])
+                    model.setBounds(j, colLB[j], colUB[j]);
+        }
+
+        int fractionalCount = ZiRound.countFractional(x, integerColumns);
+        if (status == HeuristicResult.Status.SOLVED && fractionalCount != 0)
+            status = HeuristicResult.Status.STALLED;
+        return new HeuristicResult(status, snapshot.toNumVariables(x), x, fractionalCount, rounds, fixings, System.nanoTime() - startTime);
+    }
+
+    /**
+     * @return The INT variables that aren't fixed and are fractional in x
+     */
+    private static int[] residual(int[] integerColumns, boolean[] fixed, double[] x) {
+        int count = 0;
+        for (int j : integerColumns)
+            if (!fixed[j] && ZiRound.computeZI(x[j]) != 0)
+                count++;
+        int[] residual = new int[count];
+        int k = 0;
+        for (int j : integerColumns)
+            if (!fixed[j] && ZiRound.computeZI(x[j]) != 0)
+                residual[k++] = j;
+        return residual;
+    }
+}
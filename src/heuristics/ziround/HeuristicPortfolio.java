@@ -0,0 +1,163 @@
+package heuristics.ziround;
+
+import heuristics.interfaces.Heuristic;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Races several {@link Heuristic}s on the same relaxed solution, each one on its own thread and its own copy of the
+ * solution, all of them reading the same {@link ModelSnapshot}.
+ * <p>
+ * Every result is checked with a {@link FeasibilityVerifier}; depending on the {@link Mode} the race ends at the
+ * first feasible result or at the deadline, then the heuristics still running are cancelled
+ */
+public class HeuristicPortfolio {
+    private final ModelSnapshot snapshot;
+    private final List<String> names = new ArrayList<>();
+    private final List<Heuristic> heuristics = new ArrayList<>();
+
+    /**
+     * @param snapshot The model shared by all the heuristics
+     */
+    public HeuristicPortfolio(@NotNull ModelSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * @param snapshot         The model shared by all the heuristics
+     * @param relaxedSolutions A solution of the relaxed model
+     * @param threshold        threshold param for the ZiRound algorithm
+     * @param seed             Seed for the randomized rounding
+     * @return A portfolio with ZiRound, simple rounding, shift-and-propagate and randomized rounding
+     */
+    public static HeuristicPortfolio standard(@NotNull ModelSnapshot snapshot, @NotNull double[] relaxedSolutions,
+                                              double threshold, long seed) {
+        HeuristicPortfolio portfolio = new HeuristicPortfolio(snapshot);
+        ZiRound ziRound = new ZiRound(snapshot, relaxedSolutions, threshold);
+        ziRound.setEqualityExtension(true);
+        portfolio.add("ZiRound", ziRound);
+        portfolio.add("SimpleRounding", new SimpleRounding(snapshot, relaxedSolutions));
+        portfolio.add("ShiftAndPropagate", new ShiftAndPropagate(snapshot, relaxedSolutions, ShiftAndPropagate.DEFAULT_MAX_PASSES));
+        portfolio.add("RandomizedRounding", new RandomizedRounding(snapshot, relaxedSolutions, seed, RandomizedRounding.DEFAULT_ATTEMPTS));
+        return portfolio;
+    }
+
+    /**
+     * @param name      Name used to report the winner
+     * @param heuristic A heuristic built on the snapshot of this portfolio
+     */
+    public void add(@NotNull String name, @NotNull Heuristic heuristic) {
+        names.add(name);
+        heuristics.add(heuristic);
+    }
+
+    /**
+     * Runs all the heuristics concurrently
+     *
+     * @param mode           When the race ends
+     * @param deadlineMillis Wall clock budget of the whole race
+     * @return The winner, {@code null} if no heuristic completed before the deadline
+     * @throws InterruptedException  If the calling thread is interrupted while waiting
+     * @throws IllegalStateException If no heuristic was added
+     */
+    public Entry race(@NotNull Mode mode, long deadlineMillis) throws InterruptedException {
+        if (heuristics.isEmpty())
+            throw new IllegalStateException("The portfolio is empty");
+        long deadline = System.nanoTime() + deadlineMillis * 1_000_000L;
+        CancellationToken token = new CancellationToken();
+        FeasibilityVerifier verifier = new FeasibilityVerifier(snapshot);
+        ExecutorService executor = Executors.newFixedThreadPool(heuristics.size());
+        CompletionService<Entry> completion = new ExecutorCompletionService<>(executor);
+        for (int h = 0; h < heuristics.size(); h++) {
+            String name = names.get(h);
+            Heuristic heuristic = heuristics.get(h);
+            heuristic.setCancellationToken(token);
+            completion.submit(() -> {
+                HeuristicResult result = heuristic.applyHeuristic();
+                return new Entry(name, result, verifier.verify(result.getValues()));
+            });
+        }
+
+        Entry best = null;
+        try {
+            for (int pending = heuristics.size(); pending > 0; pending--) {
+                long left = deadline - System.nanoTime();
+                Future<Entry> done = left > 0 ? completion.poll(left, TimeUnit.NANOSECONDS) : null;
+                if (done == null)
+                    break; //deadline
+                Entry entry;
+                try {
+                    entry = done.get();
+                } catch (ExecutionException e) {
+                    e.printStackTrace();
+                    //The other heuristics can still win
+                    continue;
+                }
+                if (best == null || isBetter(entry, best))
+                    best = entry;
+                if (mode == Mode.FIRST_FEASIBLE && best.getReport().isFeasible())
+                    break;
+            }
+        } finally {
+            token.cancel();
+            executor.shutdownNow();
+        }
+        return best;
+    }
+
+    /**
+     * @return {@code True} if {@code a} is feasible and {@code b} isn't, or both are feasible and {@code a} has a
+     * better objective, or both are infeasible and {@code a} has a smaller violation
+     */
+    private boolean isBetter(Entry a, Entry b) {
+        FeasibilityReport ra = a.getReport();
+        FeasibilityReport rb = b.getReport();
+        if (ra.isFeasible() != rb.isFeasible())
+            return ra.isFeasible();
+        if (ra.isFeasible())
+            return snapshot.getObjType() == Model.ObjType.MIN ?
+                    ra.getObjectiveValue() < rb.getObjectiveValue() : ra.getObjectiveValue() > rb.getObjectiveValue();
+        return ra.getMaxViolation() < rb.getMaxViolation();
+    }
+
+    public enum Mode {
+        /**
+         * The first feasible result wins
+         */
+        FIRST_FEASIBLE,
+        /**
+         * The best result among those completed before the deadline wins
+         */
+        BEST_WITHIN_DEADLINE
+    }
+
+    /**
+     * A completed run of the race
+     */
+    public static class Entry {
+        private final String name;
+        private final HeuristicResult result;
+        private final FeasibilityReport report;
+
+        public Entry(String name, HeuristicResult result, FeasibilityReport report) {
+            this.name = name;
+            this.result = result;
+            this.report = report;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public HeuristicResult getResult() {
+            return result;
+        }
+
+        public FeasibilityReport getReport() {
+            return report;
+        }
+    }
+}
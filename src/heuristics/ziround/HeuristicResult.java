@@ -0,0 +1,95 @@
+package heuristics.ziround;
+
+/**
+ * Outcome of a heuristic run: why it stopped, how much work it did and the (possibly partial) solution it reached
+ */
+public class HeuristicResult {
+    private final Status status;
+    private final NumVariable[] solutions;
+    private final double[] values;
+    private final int fractionalCount;
+    private final int sweeps;
+    private final long shifts;
+    private final long elapsedNanos;
+
+    /**
+     * @param status          The reason why the run stopped
+     * @param solutions       The best state reached, partial if {@code status} isn't {@link Status#SOLVED}
+     * @param values          The value of each variable in {@code solutions}
+     * @param fractionalCount Number of integer variables that are still fractional
+     * @param sweeps          Number of completed sweeps
+     * @param shifts          Number of accepted shifts
+     * @param elapsedNanos    Wall clock time of the run
+     */
+    public HeuristicResult(Status status, NumVariable[] solutions, double[] values, int fractionalCount, int sweeps, long shifts, long elapsedNanos) {
+        this.status = status;
+        this.solutions = solutions;
+        this.values = values;
+        this.fractionalCount = fractionalCount;
+        this.sweeps = sweeps;
+        this.shifts = shifts;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return {@code True} if every integer variable has been rounded
+     */
+    public boolean isSolved() {
+        return status == Status.SOLVED;
+    }
+
+    public NumVariable[] getSolutions() {
+        return solutions;
+    }
+
+    public double[] getValues() {
+        return values;
+    }
+
+    public int getFractionalCount() {
+        return fractionalCount;
+    }
+
+    public int getSweeps() {
+        return sweeps;
+    }
+
+    public long getShifts() {
+        return shifts;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public enum Status {
+        /**
+         * All the integer variables have been rounded
+         */
+        SOLVED,
+        /**
+         * No more shifts could be found, some variables are still fractional
+         */
+        STALLED,
+        TIME_LIMIT,
+        SWEEP_LIMIT,
+        SHIFT_LIMIT,
+        CANCELLED,
+        /**
+         * The run stopped because it could no longer beat the shared incumbent
+         */
+        PRUNED,
+        /**
+         * Bound propagation proved that the variables rounded so far can't be completed to a feasible solution
+         */
+        INFEASIBLE,
+        /**
+         * All the integer variables have been rounded, but the solution violates a SOS set
+         */
+        SOS_VIOLATED
+    }
+}
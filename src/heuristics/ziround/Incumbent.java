@@ -0,0 +1,85 @@
+package heuristics.ziround;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Best feasible solution found so far, shared by concurrent runs without locks: a new solution replaces the
+ * current one through a compare-and-set only if its objective is strictly better
+ */
+public class Incumbent {
+    private final Model.ObjType objType;
+    private final AtomicReference<Solution> best = new AtomicReference<>();
+
+    /**
+     * @param objType Type of objective function, decides which solutions are better
+     */
+    public Incumbent(@NotNull Model.ObjType objType) {
+        this.objType = objType;
+    }
+
+    /**
+     * @param objectiveValue Objective value of a feasible solution
+     * @param values         The solution, it must not be modified after the call
+     * @return {@code True} if the solution became the incumbent
+     */
+    public boolean offer(double objectiveValue, @NotNull double[] values) {
+        Solution candidate = new Solution(objectiveValue, values);
+        while (true) {
+            Solution current = best.get();
+            if (current != null && !isBetter(objectiveValue, current.objectiveValue))
+                return false;
+            if (best.compareAndSet(current, candidate))
+                return true;
+        }
+    }
+
+    /**
+     * @param bound An optimistic estimate of the objective value a run can still reach
+     * @return {@code True} if there's no incumbent or the bound is strictly better than it
+     */
+    public boolean canBeBeaten(double bound) {
+        Solution current = best.get();
+        return current == null || isBetter(bound, current.objectiveValue);
+    }
+
+    /**
+     * @return {@code True} if a solution was offered
+     */
+    public boolean isPresent() {
+        return best.get() != null;
+    }
+
+    /**
+     * @return The objective value of the incumbent, the worst possible value if there's none
+     */
+    public double getObjectiveValue() {
+        Solution current = best.get();
+        if (current == null)
+            return objType == Model.ObjType.MIN ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+        return current.objectiveValue;
+    }
+
+    /**
+     * @return The incumbent solution, {@code null} if there's none
+     */
+    public double[] getValues() {
+        Solution current = best.get();
+        return current == null ? null : current.values;
+    }
+
+    private boolean isBetter(double a, double b) {
+        return objType == Model.ObjType.MIN ? a < b : a > b;
+    }
+
+    private static class Solution {
+        private final double objectiveValue;
+        private final double[] values;
+
+        private Solution(double objectiveValue, double[] values) {
+            this.objectiveValue = objectiveValue;
+            this.values = values;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package heuristics.ziround;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Binary min-heap over the ids {@code 0..capacity-1}, each id is in the heap at most once with a double key, ties
+ * are broken by a second double key.
+ * <p>
+ * The position of every id is tracked, so the key of an id already in the heap can be changed (increased or
+ * decreased) or the id removed in O(log n)
+ */
+public class IndexedHeap {
+    private final int[] heap;
+    private final int[] position;
+    private final double[] keys;
+    private final double[] tieBreaks;
+    private int size;
+
+    /**
+     * @param capacity Number of ids, the ids are {@code 0..capacity-1}
+     */
+    public IndexedHeap(int capacity) {
+        heap = new int[capacity];
+        position = new int[capacity];
+        keys = new double[capacity];
+        tieBreaks = new double[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param id An id
+     * @return {@code True} if the id is in the heap
+     */
+    public boolean contains(int id) {
+        return position[id] != -1;
+    }
+
+    /**
+     * @param id An id in the heap
+     * @return The key of the id
+     */
+    public double getKey(int id) {
+        if (!contains(id))
+            throw new NoSuchElementException();
+        return keys[id];
+    }
+
+    /**
+     * Inserts an id, or changes its key if it's already in the heap
+     *
+     * @param id  An id
+     * @param key The new key of the id
+     */
+    public void update(int id, double key) {
+        update(id, key, 0);
+    }
+
+    /**
+     * Inserts an id, or changes its keys if it's already in the heap: the ids are ordered by key, then by tie break
+     *
+     * @param id       An id
+     * @param key      The new key of the id
+     * @param tieBreak The new second key of the id, compared only between equal keys
+     */
+    public void update(int id, double key, double tieBreak) {
+        if (position[id] == -1) {
+            keys[id] = key;
+            tieBreaks[id] = tieBreak;
+            position[id] = size;
+            heap[size++] = id;
+            siftUp(position[id]);
+        } else {
+            boolean decreased = key < keys[id] || key == keys[id] && tieBreak < tieBreaks[id];
+            keys[id] = key;
+            tieBreaks[id] = tieBreak;
+            if (decreased)
+                siftUp(position[id]);
+            else
+                siftDown(position[id]);
+        }
+    }
+
+    /**
+     * @return The id with the lowest key, without removing it
+     */
+    public int peek() {
+        if (size == 0)
+            throw new NoSuchElementException();
+        return heap[0];
+    }
+
+    /**
+     * Removes the id with the lowest key
+     *
+     * @return The removed id
+     */
+    public int poll() {
+        int id = peek();
+        remove(id);
+        return id;
+    }
+
+    /**
+     * @param id An id, nothing happens if it's not in the heap
+     */
+    public void remove(int id) {
+        int p = position[id];
+        if (p == -1)
+            return;
+        int last = heap[--size];
+        position[id] = -1;
+        if (p == size)
+            return;
+        heap[p] = last;
+        position[last] = p;
+        siftUp(p);
+        siftDown(position[last]);
+    }
+
+    private void siftUp(int p) {
+        int id = heap[p];
+        while (p > 0) {
+            int parent = (p - 1) >>> 1;
+            if (!less(id, heap[parent]))
+                break;
+            heap[p] = heap[parent];
+            position[heap[p]] = p;
+            p = parent;
+        }
+        heap[p] = id;
+        position[id] = p;
+    }
+
+    private void siftDown(int p) {
+        int id = heap[p];
+        while (true) {
+            int child = 2 * p + 1;
+            if (child >= size)
+                break;
+            if (child + 1 < size && less(heap[child + 1], heap[child]))
+                child++;
+            if (!less(heap[child], id))
+                break;
+            heap[p] = heap[child];
+            position[heap[p]] = p;
+            p = child;
+        }
+        heap[p] = id;
+        position[id] = p;
+    }
+
+    private boolean less(int a, int b) {
+        return keys[a] < keys[b] || keys[a] == keys[b] && tieBreaks[a] < tieBreaks[b];
+    }
+}
@@ -0,0 +1,154 @@
+package heuristics.ziround;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/**
+ * Set of indexes in {@code 0..universe-1}, stored as a sorted {@code int[]} of the members plus a bitset.
+ * <p>
+ * Membership, removal and iteration don't allocate: a removed index only clears its bit, the sorted array is
+ * compacted in place when it's iterated. There's no boxing, so sets of millions of variables cost two primitive
+ * arrays
+ */
+public class IntIndexSet {
+    private final int universe;
+    private final long[] bits;
+    /**
+     * Members in increasing order, followed by indexes that may have been removed since the last compaction
+     */
+    private int[] members;
+    private int length;
+    private int size;
+
+    /**
+     * @param universe Number of indexes, the members are in {@code 0..universe-1}
+     * @param members  The initial members, in any order, duplicates are ignored
+     * @throws IndexOutOfBoundsException If a member is outside the universe
+     */
+    public IntIndexSet(int universe, int[] members) {
+        this.universe = universe;
+        this.bits = new long[(universe + 63) >>> 6];
+        int[] sorted = members.clone();
+        Arrays.sort(sorted);
+        int k = 0;
+        for (int j : sorted) {
+            if (j < 0 || j >= universe)
+                throw new IndexOutOfBoundsException(j);
+            if (k == 0 || sorted[k - 1] != j) {
+                sorted[k++] = j;
+                bits[j >>> 6] |= 1L << j;
+            }
+        }
+        this.members = sorted;
+        this.length = k;
+        this.size = k;
+    }
+
+    /**
+     * @param mask {@code True} for each member
+     * @return The set of the indexes of the {@code true} elements, the universe is {@code mask.length}
+     */
+    public static IntIndexSet fromMask(boolean[] mask) {
+        int count = 0;
+        for (boolean member : mask)
+            if (member)
+                count++;
+        int[] members = new int[count];
+        int k = 0;
+        for (int j = 0; j < mask.length; j++)
+            if (mask[j])
+                members[k++] = j;
+        return new IntIndexSet(mask.length, members);
+    }
+
+    public int getUniverse() {
+        return universe;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param j An index
+     * @return {@code True} if the index is a member
+     */
+    public boolean contains(int j) {
+        return j >= 0 && j < universe && (bits[j >>> 6] & 1L << j) != 0;
+    }
+
+    /**
+     * @param j An index
+     * @return {@code True} if the index was a member
+     */
+    public boolean remove(int j) {
+        if (!contains(j))
+            return false;
+        bits[j >>> 6] &= ~(1L << j);
+        size--;
+        return true;
+    }
+
+    /**
+     * @return The smallest member
+     * @throws NoSuchElementException If the set is empty
+     */
+    public int first() {
+        compact();
+        if (size == 0)
+            throw new NoSuchElementException();
+        return members[0];
+    }
+
+    /**
+     * Visits the members in increasing order, a member removed by the action before it's reached is skipped
+     *
+     * @param action Called with each member
+     */
+    public void forEach(IntConsumer action) {
+        compact();
+        int n = length;
+        for (int k = 0; k < n; k++) {
+            int j = members[k];
+            if (contains(j))
+                action.accept(j);
+        }
+    }
+
+    /**
+     * The array is shared with the set and is valid until the next removal: it must not be changed. Only its first
+     * {@link #size()} elements are members, the array is never reallocated
+     *
+     * @return The members in increasing order, followed by unspecified values
+     */
+    public int[] members() {
+        compact();
+        return members;
+    }
+
+    /**
+     * @return A copy of the members in increasing order
+     */
+    public int[] toArray() {
+        compact();
+        return Arrays.copyOf(members, size);
+    }
+
+    /**
+     * Drops the removed indexes from the sorted array, in place
+     */
+    private void compact() {
+        if (length == size)
+            return;
+        int k = 0;
+        for (int p = 0; p < length; p++)
+            if (contains(members[p]))
+                members[k++] = members[p];
+        length = k;
+    }
+}
@@ -46,15 +46,19 @@ public class LPUtils {
 
         IloObjective obj = modelLister.getObj();
 
-        NumVariable[] vars = new NumVariable[matrix.getNcols()];
-        for (int j = 0; j < matrix.getNcols(); j++) {
+        //One call for all the columns, then each variable is read once
+        IloNumVar[] numVars = matrix.getNumVars();
+        NumVariable[] vars = new NumVariable[numVars.length];
+        for (int j = 0; j < numVars.length; j++) {
+            IloNumVarType type = numVars[j].getType();
+            double ub = numVars[j].getUB();
             NumVariable.VarType varType = null;
-            if (matrix.getNumVar(j).getType().equals(IloNumVarType.Int))
+            if (type.equals(IloNumVarType.Int))
                 varType = NumVariable.VarType.INT;
-            else if (matrix.getNumVar(j).getType().equals(IloNumVarType.Float))
+            else if (type.equals(IloNumVarType.Float))
                 varType = NumVariable.VarType.REAL;
             try {
-                vars[j] = new NumVariable(varType, matrix.getNumVar(j).getUB(), matrix.getNumVar(j).getUB(), matrix.getNumVar(j).getLB());
+                vars[j] = new NumVariable(varType, ub, ub, numVars[j].getLB());
             } catch (InvalidAttributeValueException | NumVariable.ValueOutOfBoundsException e) {
                 e.printStackTrace();
             }
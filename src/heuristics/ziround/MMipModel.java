@@ -7,8 +7,6 @@ import org.jetbrains.annotations.NotNull;
 
 import javax.management.InvalidAttributeValueException;
 import java.security.InvalidAlgorithmParameterException;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Defines a mixed-Mip model
@@ -333,16 +331,15 @@ public class MMipModel {
      * @return An {@code int[]} array containing the indexes of the variables that are constrained to INT
      */
     public int[] getIntegerConstraints() {
-        List<Integer> integerConstraints = new ArrayList<>();
-        for (int j = 0; j < countNumVariables(); j++) {
-            if (variables[j].getType().equals(NumVariable.VarType.INT))
-                integerConstraints.add(j);
-        }
-        int[] returnArray = new int[integerConstraints.size()];
+        int count = 0;
+        for (NumVariable variable : variables)
+            if (variable.getType().equals(NumVariable.VarType.INT))
+                count++;
+        int[] returnArray = new int[count];
         int i = 0;
-        for (int intConstraint : integerConstraints) {
-            returnArray[i++] = intConstraint;
-        }
+        for (int j = 0; j < variables.length; j++)
+            if (variables[j].getType().equals(NumVariable.VarType.INT))
+                returnArray[i++] = j;
         return returnArray;
     }
 
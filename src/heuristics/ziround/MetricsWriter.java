@@ -0,0 +1,198 @@
+package heuristics.ziround;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends one line of metrics per instance to a CSV or JSON-lines file, each line is flushed as soon as it's
+ * written so that the results of the completed instances survive a crash of the batch
+ * <p>
+ * Thread safe
+ */
+public class MetricsWriter implements Closeable {
+    private static final String[] COLUMNS = {"instance", "status", "loadMillis", "lpMillis", "ziRoundMillis",
+            "sweeps", "fractional", "feasible", "objective", "error"};
+
+    private final BufferedWriter writer;
+    private final Format format;
+
+    /**
+     * The file is appended to, the CSV header is written only if the file is empty
+     *
+     * @param path   The output file
+     * @param format The format of the lines
+     */
+    public MetricsWriter(@NotNull Path path, @NotNull Format format) throws IOException {
+        this.format = format;
+        boolean empty = !Files.exists(path) || Files.size(path) == 0;
+        writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        if (format == Format.CSV && empty) {
+            writer.write(String.join(",", COLUMNS));
+            writer.newLine();
+            writer.flush();
+        }
+    }
+
+    /**
+     * @param path The output file
+     * @return {@link Format#JSONL} for the {@code .json} and {@code .jsonl} files, {@link Format#CSV} otherwise
+     */
+    public static Format formatOf(@NotNull Path path) {
+        String name = path.getFileName().toString().toLowerCase();
+        return name.endsWith(".jsonl") || name.endsWith(".json") ? Format.JSONL : Format.CSV;
+    }
+
+    /**
+     * Writes and flushes a line
+     *
+     * @param metrics The metrics of an instance
+     */
+    public synchronized void write(@NotNull Metrics metrics) throws IOException {
+        Object[] values = {metrics.instance, metrics.status, metrics.loadMillis, metrics.lpMillis,
+                metrics.ziRoundMillis, metrics.sweeps, metrics.fractional, metrics.feasible, metrics.objective,
+                metrics.error};
+        StringBuilder line = new StringBuilder();
+        if (format == Format.JSONL)
+            line.append('{');
+        for (int c = 0; c < COLUMNS.length; c++) {
+            if (c > 0)
+                line.append(',');
+            if (format == Format.JSONL)
+                line.append('"').append(COLUMNS[c]).append("\":").append(json(values[c]));
+            else
+                line.append(csv(values[c]));
+        }
+        if (format == Format.JSONL)
+            line.append('}');
+        writer.write(line.toString());
+        writer.newLine();
+        writer.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+
+    private static String csv(Object value) {
+        if (value == null)
+            return "";
+        String text = value.toString();
+        if (text.indexOf(',') == -1 && text.indexOf('"') == -1 && text.indexOf('\n') == -1)
+            return text;
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    private static String json(Object value) {
+        if (value == null)
+            return "null";
+        if (value instanceof Boolean || value instanceof Integer || value instanceof Long)
+            return value.toString();
+        if (value instanceof Double)
+            return Double.isFinite((Double) value) ? value.toString() : "null";
+        StringBuilder text = new StringBuilder("\"");
+        for (char ch : value.toString().toCharArray()) {
+            switch (ch) {
+                case '"':
+                    text.append("\\\"");
+                    break;
+                case '\\':
+                    text.append("\\\\");
+                    break;
+                case '\n':
+                    text.append("\\n");
+                    break;
+                case '\r':
+                    text.append("\\r");
+                    break;
+                case '\t':
+                    text.append("\\t");
+                    break;
+                default:
+                    if (ch < 0x20)
+                        text.append(String.format("\\u%04x", (int) ch));
+                    else
+                        text.append(ch);
+            }
+        }
+        return text.append('"').toString();
+    }
+
+    public enum Format {
+        CSV,
+        JSONL
+    }
+
+    /**
+     * The metrics of an instance, the fields that weren't measured (e.g. after an error) are {@code null}
+     */
+    public static class Metrics {
+        private final String instance;
+        private String status;
+        private Long loadMillis;
+        private Long lpMillis;
+        private Long ziRoundMillis;
+        private Integer sweeps;
+        private Integer fractional;
+        private Boolean feasible;
+        private Double objective;
+        private String error;
+
+        /**
+         * @param instance The model file
+         */
+        public Metrics(@NotNull String instance) {
+            this.instance = instance;
+        }
+
+        public void setStatus(String status) {
+            this.status = status;
+        }
+
+        public void setLoadMillis(long loadMillis) {
+            this.loadMillis = loadMillis;
+        }
+
+        public void setLpMillis(long lpMillis) {
+            this.lpMillis = lpMillis;
+        }
+
+        public void setZiRoundMillis(long ziRoundMillis) {
+            this.ziRoundMillis = ziRoundMillis;
+        }
+
+        public void setSweeps(int sweeps) {
+            this.sweeps = sweeps;
+        }
+
+        public void setFractional(int fractional) {
+            this.fractional = fractional;
+        }
+
+        public void setFeasible(boolean feasible) {
+            this.feasible = feasible;
+        }
+
+        public void setObjective(double objective) {
+            this.objective = objective;
+        }
+
+        public void setError(String error) {
+            this.error = error;
+        }
+
+        /**
+         * @return The message of the error that stopped the instance, {@code null} if there was none
+         */
+        public String getError() {
+            return error;
+        }
+    }
+}
@@ -1,71 +1,151 @@
 package heuristics.ziround;
 
+import heuristics.interfaces.ListerListener;
 import ilog.concert.*;
 import ilog.cplex.IloCplex;
 import org.jetbrains.annotations.NotNull;
 
 import javax.management.InvalidAttributeValueException;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * Simple wrapper for reading data from {@link IloCplex} instances
+ * <p>
+ * The model owns its instance: {@link #close()} ends it, or gives it back to the {@link CplexPool} it came from
  *
  * @author Turcato
  */
-public class Model {
+public class Model implements AutoCloseable, ListerListener {
     private IloCplex cplex;
     private double[] solutions;
     private IloLPMatrix matrix;
     private IloObjective obj;
-    private List<Double> mMultipliers;
+    private IloSOS1[] sos1 = new IloSOS1[0];
+    private IloSOS2[] sos2 = new IloSOS2[0];
+    private ModelSnapshot snapshot;
+    /**
+     * Memoized on first access, see {@link #onModelListed(VariableLister)}
+     */
+    private IloNumVar[] variables;
+    private double[] columnLB;
+    private double[] columnUB;
+    private IloNumVarType[] columnTypes;
+    private double[] objective;
+    private int[] integerConstraints;
+    private CplexPool pool;
+    private long nativeBytes;
+
+    /**
+     * Rough size of the data CPLEX keeps for each non zero and for each row or column
+     */
+    private final static long NATIVE_BYTES_PER_NON_ZERO = 32;
+    private final static long NATIVE_BYTES_PER_LINE = 96;
 
     private final static String CONSTRAINT_READ_ERROR = "Impossible to read constraint at row ";
     private final static String VARIABLE_READ_ERROR = "Error reading variable j=";
 
     /**
      * Builds the object starting from a valid {@link IloCplex} instance
+     * <p>
+     * Nothing is read here: the model is listed on the first access to its matrix, and every derived structure
+     * (snapshot, objective, integer variables, variables) is computed once on first use
      *
      * @param iloCplexInstance A valid instance containing a model
      */
     public Model(@NotNull IloCplex iloCplexInstance) {
         cplex = iloCplexInstance;
-        VariableLister modelLister = new VariableLister();
-        try {
-            modelLister.parse(cplex);
-        } catch (VariableLister.VariableListerException | IloException e) {
-            e.printStackTrace();
-            //The model might still be correct
-        }
-        onModelListed(modelLister);
+    }
+
+    /**
+     * Reads a model file in an environment of the pool
+     *
+     * @param pool     The pool that provides the environment, it gets it back on {@link #close()}
+     * @param fileName A model file in any format supported by {@link IloCplex#importModel(String)}
+     * @return The model, to be closed after use
+     * @throws InterruptedException If the thread is interrupted while waiting for an environment
+     */
+    public static Model fromFile(@NotNull CplexPool pool, @NotNull String fileName) throws IloException, InterruptedException {
+        IloCplex cplex = pool.acquire();
         try {
-            solutions = new double[matrix.getNcols()];
-        } catch (IloException e) {
-            e.printStackTrace();
-            //What the fuck
+            cplex.importModel(fileName);
+        } catch (IloException | RuntimeException e) {
+            pool.release(cplex);
+            throw e;
         }
+        Model model = new Model(cplex);
+        model.pool = pool;
+        model.nativeBytes = model.estimateNativeBytes();
+        pool.addNativeBytes(model.nativeBytes);
+        return model;
     }
 
     /**
+     * CPLEX doesn't report its memory, the estimate is proportional to the size of the model
+     *
+     * @return Estimate of the native memory used by the model
+     */
+    public long estimateNativeBytes() throws IloException {
+        return cplex.getNNZs() * NATIVE_BYTES_PER_NON_ZERO
+                + (long) (cplex.getNrows() + cplex.getNcols()) * NATIVE_BYTES_PER_LINE;
+    }
+
+    /**
+     * Ends the {@link IloCplex} instance, or clears it and gives it back to its pool. A snapshot already taken
+     * stays readable
+     */
+    @Override
+    public void close() {
+        if (cplex == null)
+            return;
+        if (pool != null) {
+            pool.addNativeBytes(-nativeBytes);
+            pool.release(cplex);
+        } else
+            cplex.end();
+        cplex = null;
+        matrix = null;
+        obj = null;
+        variables = null;
+    }
+
+    /**
+     * Can be passed to {@link VariableLister#parseAsync} to list the model in the background
+     *
      * @param lister A valid lister that contains the data from the given {@link IloCplex} instance
      */
+    @Override
     public void onModelListed(VariableLister lister) {
         matrix = lister.getMatrix();
         obj = lister.getObj();
-        mMultipliers = new ArrayList<>();
-        try {
-            if (obj.getExpr() instanceof IloLinearNumExpr) {
-                IloLinearNumExpr lexpr = (IloLinearNumExpr) obj.getExpr();
-                IloLinearNumExprIterator it = lexpr.linearIterator();
+        sos1 = lister.getSOS1();
+        sos2 = lister.getSOS2();
+        snapshot = null;
+        variables = null;
+        columnTypes = null;
+        objective = null;
+        integerConstraints = null;
+    }
 
-                while (it.hasNext()) {
-                    it.nextNumVar();
-                    mMultipliers.add(it.getValue());
-                }
+    /**
+     * Lists the model on the first call
+     */
+    private IloLPMatrix matrix() {
+        if (matrix == null) {
+            VariableLister modelLister = new VariableLister();
+            try {
+                modelLister.parse(cplex);
+            } catch (VariableLister.VariableListerException | IloException e) {
+                e.printStackTrace();
+                //The model might still be correct
             }
-        } catch (IloException e) {
-            e.printStackTrace();
+            onModelListed(modelLister);
         }
+        return matrix;
+    }
+
+    private IloObjective objectiveFunction() {
+        matrix();
+        return obj;
     }
 
     /**
@@ -78,12 +158,13 @@ public class Model {
             for expr <= rhs, set lb = -infinity and ub = rhs
             for expr >= rhs, set lb = rhs and ub = infinity
          */
-        for (int i = 0; i < matrix.getNrows(); i++) {
-            IloRange rangedExpression = matrix.getRange(i);
+        snapshot = null;
+        for (int i = 0; i < matrix().getNrows(); i++) {
+            IloRange rangedExpression = matrix().getRange(i);
             if (rangedExpression.getUB() >= Double.POSITIVE_INFINITY) {
                 rangedExpression.setBounds(Double.NEGATIVE_INFINITY, -rangedExpression.getUB());
-                for (int j = 0; j < matrix.getNrows(); j++) {
-                    matrix.setNZ(i, j, -matrix.getNZ(i, j));
+                for (int j = 0; j < matrix().getNrows(); j++) {
+                    matrix().setNZ(i, j, -matrix().getNZ(i, j));
                 }
             }
         }
@@ -99,12 +180,13 @@ public class Model {
             for expr <= rhs, set lb = -infinity and ub = rhs
             for expr >= rhs, set lb = rhs and ub = infinity
          */
-        for (int i = 0; i < matrix.getNrows(); i++) {
-            IloRange rangedExpression = matrix.getRange(i);
+        snapshot = null;
+        for (int i = 0; i < matrix().getNrows(); i++) {
+            IloRange rangedExpression = matrix().getRange(i);
             if (rangedExpression.getLB() <= Double.NEGATIVE_INFINITY) {
                 rangedExpression.setBounds(-rangedExpression.getLB(), Double.POSITIVE_INFINITY);
-                for (int j = 0; j < matrix.getNrows(); j++) {
-                    matrix.setNZ(i, j, -matrix.getNZ(i, j));
+                for (int j = 0; j < matrix().getNrows(); j++) {
+                    matrix().setNZ(i, j, -matrix().getNZ(i, j));
                 }
             }
         }
@@ -118,14 +200,11 @@ public class Model {
      * @return Current slack of i° constraint
      */
     public double getConstraintSlack(int i) throws IloException {
-        IloRange rangedExpression = matrix.getRange(i);
+        IloRange rangedExpression = matrix().getRange(i);
         if (rangedExpression.getLB() == rangedExpression.getUB())
             return 0;
         //value of the left member of the constraint's expression
-        double leftValue = 0;
-        for (int col = 0; col < matrix.getNrows(); col++) {
-            leftValue += matrix.getNZ(i, col) * solutions[col];
-        }
+        double leftValue = snapshot().getRowActivity(i, getCurrentSolutions());
         if (rangedExpression.getLB() <= Double.NEGATIVE_INFINITY) {
             return rangedExpression.getUB() - leftValue;
         } else if (rangedExpression.getUB() >= Double.POSITIVE_INFINITY) {
@@ -135,32 +214,183 @@ public class Model {
     }
 
     /**
+     * Reads the whole model in primitive arrays, the snapshot is cached until the constraints are changed
+     *
+     * @return An immutable copy of the model's matrix, bounds and objective
+     */
+    public ModelSnapshot snapshot() throws IloException {
+        if (snapshot == null) {
+            int nRows = matrix().getNrows();
+            int nCols = matrix().getNcols();
+
+            //A single call reads bounds and non zeros of every row
+            double[] rowLB = new double[nRows];
+            double[] rowUB = new double[nRows];
+            int[][] ind = new int[nRows][];
+            double[][] val = new double[nRows][];
+            matrix().getRows(0, nRows, rowLB, rowUB, ind, val);
+            int[] rowStart = new int[nRows + 1];
+            for (int i = 0; i < nRows; i++)
+                rowStart[i + 1] = rowStart[i] + ind[i].length;
+            int[] rowIndex = new int[rowStart[nRows]];
+            double[] rowValue = new double[rowStart[nRows]];
+            for (int i = 0; i < nRows; i++) {
+                System.arraycopy(ind[i], 0, rowIndex, rowStart[i], ind[i].length);
+                System.arraycopy(val[i], 0, rowValue, rowStart[i], val[i].length);
+            }
+
+            IloNumVarType[] types = columnTypes();
+            boolean[] integer = new boolean[nCols];
+            for (int j = 0; j < nCols; j++)
+                integer[j] = isInteger(types[j]);
+            double[] objective = objective();
+
+            //The SOS sets aren't part of the matrix, their members are sorted by weight
+            int nSets = sos1.length + sos2.length;
+            int[] sosType = new int[nSets];
+            int[] sosStart = new int[nSets + 1];
+            int[][] members = new int[nSets][];
+            for (int s = 0; s < nSets; s++) {
+                boolean first = s < sos1.length;
+                sosType[s] = first ? 1 : 2;
+                members[s] = first ? sosMembers(sos1[s].getNumVars(), sos1[s].getValues())
+                        : sosMembers(sos2[s - sos1.length].getNumVars(), sos2[s - sos1.length].getValues());
+                sosStart[s + 1] = sosStart[s] + members[s].length;
+            }
+            int[] sosIndex = new int[sosStart[nSets]];
+            for (int s = 0; s < nSets; s++)
+                System.arraycopy(members[s], 0, sosIndex, sosStart[s], members[s].length);
+
+            snapshot = new ModelSnapshot(columnLB.clone(), columnUB.clone(), integer, objective, getObjType(),
+                    rowLB, rowUB, rowStart, rowIndex, rowValue, sosType, sosStart, sosIndex);
+        }
+        return snapshot;
+    }
+
+    /**
+     * @param variables The members of a SOS set
+     * @param weights   The weight of each member
+     * @return The columns of the members that are in the matrix, by increasing weight
+     */
+    private int[] sosMembers(IloNumVar[] variables, double[] weights) throws IloException {
+        Integer[] order = new Integer[variables.length];
+        for (int k = 0; k < order.length; k++)
+            order[k] = k;
+        Arrays.sort(order, (a, b) -> Double.compare(weights[a], weights[b]));
+        int[] columns = new int[variables.length];
+        int count = 0;
+        for (int k : order) {
+            int j = matrix().getIndex(variables[k]);
+            if (j >= 0)
+                columns[count++] = j;
+        }
+        return Arrays.copyOf(columns, count);
+    }
+
+    /**
+     * @return The multiplier of each variable in the objective function, in column order
+     */
+    private double[] objective() throws IloException {
+        if (objective == null) {
+            double[] multipliers = new double[matrix().getNcols()];
+            //The objective expression isn't sorted by column
+            if (objectiveFunction().getExpr() instanceof IloLinearNumExpr) {
+                IloLinearNumExprIterator it = ((IloLinearNumExpr) objectiveFunction().getExpr()).linearIterator();
+                while (it.hasNext()) {
+                    int j = matrix().getIndex(it.nextNumVar());
+                    if (j >= 0)
+                        multipliers[j] += it.getValue();
+                }
+            }
+            objective = multipliers;
+        }
+        return objective;
+    }
+
+    /**
+     * @return The variables of the model, in column order
+     */
+    IloNumVar[] getNumVars() throws IloException {
+        if (variables == null)
+            variables = matrix().getNumVars();
+        return variables;
+    }
+
+    /**
+     * The only test of the INT variables, so that the snapshot, the variables and the integer constraints agree
+     *
+     * @param type The type of a variable
+     * @return {@code True} for Int and Bool variables
+     */
+    private static boolean isInteger(IloNumVarType type) {
+        return !type.equals(IloNumVarType.Float);
+    }
+
+    /**
+     * Reads the bounds and the type of every column in a single pass over {@link #getNumVars()}, the arrays are
+     * kept until the model is listed again. Bounds changed later by {@link #setBounds(int, double, double)} aren't
+     * reflected
+     *
+     * @return The type of each variable, in column order
+     */
+    private IloNumVarType[] columnTypes() throws IloException {
+        if (columnTypes == null) {
+            IloNumVar[] variables = getNumVars();
+            double[] lb = new double[variables.length];
+            double[] ub = new double[variables.length];
+            IloNumVarType[] types = new IloNumVarType[variables.length];
+            for (int j = 0; j < variables.length; j++) {
+                lb[j] = variables[j].getLB();
+                ub[j] = variables[j].getUB();
+                types[j] = variables[j].getType();
+            }
+            columnLB = lb;
+            columnUB = ub;
+            columnTypes = types;
+        }
+        return columnTypes;
+    }
+
+    /**
+     * @return The last solutions read from the solver, without solving the model again
+     */
+    double[] getCurrentSolutions() throws IloException {
+        if (solutions == null)
+            solutions = new double[countNumVariables()];
+        return solutions;
+    }
+
+    /**
+     * Doesn't need the model to be listed
+     *
      * @return The number of variables of this model
      * @throws NullPointerException If there aren't any variables
      */
     public int countNumVariables() throws NullPointerException, IloException {
-        return matrix.getNcols();
+        return cplex.getNcols();
     }
 
     /**
+     * Doesn't need the model to be listed
+     *
      * @return The number of constraints of thi model
      */
     public int countConstraints() throws IloException {
-        return matrix.getNrows();
+        return cplex.getNrows();
     }
 
     /**
      * @return The type of objective function {max, min}
      */
     public ObjType getObjType() throws IloException {
-        if (obj.getSense() == IloObjectiveSense.Maximize)
+        if (objectiveFunction().getSense() == IloObjectiveSense.Maximize)
             return ObjType.MAX;
         else
             return ObjType.MIN;
     }
 
     public double getExpressionValue(int i) throws IloException {
-        IloRange rangedExpression = matrix.getRange(i);
+        IloRange rangedExpression = matrix().getRange(i);
         if (rangedExpression.getUB() == rangedExpression.getLB())
             return rangedExpression.getUB();
         else if (rangedExpression.getLB() <= Double.NEGATIVE_INFINITY) {
@@ -171,8 +401,12 @@ public class Model {
         throw new IloException(CONSTRAINT_READ_ERROR + i);
     }
 
+    /**
+     * @param i Index of a variable
+     * @return The multiplier of the variable in the objective function
+     */
     public double getObjMultiplier(int i) throws IloException {
-        return mMultipliers.get(i);
+        return objective()[i];
     }
 
     /**
@@ -181,11 +415,11 @@ public class Model {
      * @return The multiplier a row i and column j of the constraints matrix
      */
     public double getConstraintsMultiplier(int i, int j) throws IloException {
-        return matrix.getNZ(i, j);
+        return matrix().getNZ(i, j);
     }
 
     public ExprType getExprType(int i) throws IloException {
-        IloRange rangedExpression = matrix.getRange(i);
+        IloRange rangedExpression = matrix().getRange(i);
         if (rangedExpression.getUB() == rangedExpression.getLB())
             return ExprType.EQUAL;
         else if (rangedExpression.getLB() <= Double.NEGATIVE_INFINITY) {
@@ -202,15 +436,10 @@ public class Model {
      * @throws IloException If the variable doesn't exist
      */
     public NumVariable getVariable(int j) throws IloException {
-        IloNumVar variable = matrix.getNumVar(j);
-        NumVariable.VarType type = null;
-        if (variable.getType().equals(IloNumVarType.Int))
-            type = NumVariable.VarType.INT;
-        else if (variable.getType().equals(IloNumVarType.Float))
-            type = NumVariable.VarType.REAL;
+        NumVariable.VarType type = isInteger(columnTypes()[j]) ? NumVariable.VarType.INT : NumVariable.VarType.REAL;
         NumVariable var = null;
         try {
-            var = new NumVariable(type, solutions[j], variable.getUB(), variable.getLB());
+            var = new NumVariable(type, getCurrentSolutions()[j], columnUB[j], columnLB[j]);
         } catch (InvalidAttributeValueException | NumVariable.ValueOutOfBoundsException e) {
             System.out.print(VARIABLE_READ_ERROR + j);
             e.printStackTrace();
@@ -218,29 +447,39 @@ public class Model {
         return var;
     }
 
+    /**
+     * New variables are built on every call from the cached types and bounds, so changing them doesn't affect the
+     * model
+     *
+     * @return The variables of the model with the last solutions
+     */
     public NumVariable[] getVariables() throws IloException {
-        NumVariable[] vars = new NumVariable[countNumVariables()];
-        for (int i = 0; i < countNumVariables(); i++) {
+        NumVariable[] vars = new NumVariable[getCurrentSolutions().length];
+        for (int i = 0; i < vars.length; i++) {
             vars[i] = getVariable(i);
         }
         return vars;
     }
 
     /**
-     * @return An {@code int[]} array containing the indexes of the variables that are constrained to INT
+     * @return An {@code int[]} array containing the indexes of the variables that are constrained to INT (Int or
+     * Bool)
      */
     public int[] getIntegerConstraints() throws IloException {
-        List<Integer> integerConstraints = new ArrayList<>();
-        for (int j = 0; j < countNumVariables(); j++) {
-            if (matrix.getNumVar(j).getType().equals(IloNumVarType.Int))
-                integerConstraints.add(j);
-        }
-        int[] returnArray = new int[integerConstraints.size()];
-        int i = 0;
-        for (int intConstraint : integerConstraints) {
-            returnArray[i++] = intConstraint;
+        if (integerConstraints == null) {
+            IloNumVarType[] types = columnTypes();
+            int count = 0;
+            for (IloNumVarType type : types)
+                if (isInteger(type))
+                    count++;
+            int[] indexes = new int[count];
+            int i = 0;
+            for (int j = 0; j < types.length; j++)
+                if (isInteger(types[j]))
+                    indexes[i++] = j;
+            integerConstraints = indexes;
         }
-        return returnArray;
+        return integerConstraints.clone();
     }
 
     /**
@@ -248,7 +487,7 @@ public class Model {
      */
     public double[] getSolutions() throws IloException {
         if (cplex.solve()) {
-            solutions = cplex.getValues(matrix.getNumVars());
+            solutions = cplex.getValues(getNumVars());
             return solutions;
         }
         return null;
@@ -260,12 +499,100 @@ public class Model {
     public double[] getRelaxedSolutions() throws IloException {
         cplex.setParam(IloCplex.Param.MIP.Limits.Nodes, 0); //setting to relaxed
         if (cplex.solve()) {
-            solutions = cplex.getValues(matrix.getNumVars());
+            solutions = cplex.getValues(getNumVars());
             return solutions;
         }
         return null;
     }
 
+    /**
+     * Solves the LP relaxation of the model: the INT variables are converted to Float only for this solve.
+     * <p>
+     * The solver starts from the basis of the previous solve, so after some bounds are changed (see
+     * {@link #setBounds(int, double, double)}) the LP is re-optimized instead of being solved from scratch
+     *
+     * @return The solutions of the LP relaxation (if they exist), otherwise {@code null}
+     */
+    public double[] getLPSolutions() throws IloException {
+        IloNumVar[] variables = getNumVars();
+        int[] integerColumns = snapshot().getIntegerColumns();
+        IloNumVar[] integerVariables = new IloNumVar[integerColumns.length];
+        for (int k = 0; k < integerColumns.length; k++)
+            integerVariables[k] = variables[integerColumns[k]];
+
+        IloConversion conversion = cplex.conversion(integerVariables, IloNumVarType.Float);
+        cplex.add(conversion);
+        try {
+            cplex.setParam(IloCplex.Param.Advance, 1);
+            if (cplex.solve()) {
+                solutions = cplex.getValues(variables);
+                return solutions;
+            }
+            return null;
+        } finally {
+            cplex.remove(conversion);
+        }
+    }
+
+    /**
+     * Adds a MIP start to the solver, used by the next {@link IloCplex#solve()}
+     *
+     * @param values      A value for each variable, e.g. {@link HeuristicResult#getValues()}
+     * @param integerOnly {@code true} to pass only the INT variables that are integer, CPLEX completes the start
+     * @param effort      How much work CPLEX spends to turn the start into a solution
+     * @return The index of the start in the solver
+     */
+    public int addMIPStart(@NotNull double[] values, boolean integerOnly, @NotNull IloCplex.MIPStartEffort effort) throws IloException {
+        ModelSnapshot snapshot = snapshot();
+        IloNumVar[] variables = getNumVars();
+        int count = 0;
+        for (int j = 0; j < values.length; j++)
+            if (!integerOnly || snapshot.isInteger(j) && ZiRound.computeZI(values[j]) == 0)
+                count++;
+        IloNumVar[] startVariables = new IloNumVar[count];
+        double[] startValues = new double[count];
+        int k = 0;
+        for (int j = 0; j < values.length; j++) {
+            if (!integerOnly || snapshot.isInteger(j) && ZiRound.computeZI(values[j]) == 0) {
+                startVariables[k] = variables[j];
+                startValues[k++] = snapshot.isInteger(j) && ZiRound.computeZI(values[j]) == 0 ? Math.rint(values[j]) : values[j];
+            }
+        }
+        return cplex.addMIPStart(startVariables, startValues, effort, "ziround");
+    }
+
+    /**
+     * Loads the MIP starts of a {@code .mst} file, e.g. one written by {@link SolutionWriter}
+     *
+     * @param path The {@code .mst} file
+     */
+    public void readMIPStarts(@NotNull String path) throws IloException {
+        cplex.readMIPStarts(path);
+    }
+
+    /**
+     * @return The name of each variable, in column order
+     */
+    public String[] getVariableNames() throws IloException {
+        IloNumVar[] variables = getNumVars();
+        String[] names = new String[variables.length];
+        for (int j = 0; j < variables.length; j++)
+            names[j] = variables[j].getName();
+        return names;
+    }
+
+    /**
+     * Changes the bounds of a variable in the solver, the {@link #snapshot()} keeps the original ones
+     *
+     * @param j  Index of a variable
+     * @param lb The new lower bound
+     * @param ub The new upper bound
+     */
+    public void setBounds(int j, double lb, double ub) throws IloException {
+        IloNumVar variable = matrix().getNumVar(j);
+        variable.setLB(lb);
+        variable.setUB(ub);
+    }
 
     public enum ExprType {
         MORE_THAN,
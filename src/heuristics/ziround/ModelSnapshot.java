@@ -0,0 +1,347 @@
+package heuristics.ziround;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.management.InvalidAttributeValueException;
+
+/**
+ * Immutable, array based copy of a {@link Model}, read once from the {@link ilog.cplex.IloCplex} instance so that
+ * the heuristics never go through JNI while they run.
+ * <p>
+ * The constraint matrix is stored both by rows (CSR) and by columns (CSC). Rows are kept as ranges
+ * {@code rowLB <= a_i x <= rowUB}: a <= row has {@code rowLB = -infinity}, a >= row has {@code rowUB = +infinity}
+ * and an = row has {@code rowLB == rowUB}, so no sign normalization is needed.
+ * <p>
+ * SOS sets are stored the same way as the rows: set s has its members, sorted by weight, in positions
+ * {@code [sosStart[s], sosStart[s + 1])} of {@code sosIndex}
+ * <p>
+ * The arrays returned by the getters are shared, they must be treated as read-only
+ */
+public class ModelSnapshot {
+    private final int nRows;
+    private final int nCols;
+
+    private final int[] rowStart;
+    private final int[] rowIndex;
+    private final double[] rowValue;
+
+    private final int[] colStart;
+    private final int[] colIndex;
+    private final double[] colValue;
+
+    private final double[] rowLB;
+    private final double[] rowUB;
+    private final double[] colLB;
+    private final double[] colUB;
+    private final boolean[] integer;
+    private final double[] objective;
+    private final Model.ObjType objType;
+    private final int[] upLocks;
+    private final int[] downLocks;
+
+    private final int[] sosType;
+    private final int[] sosStart;
+    private final int[] sosIndex;
+
+    /**
+     * Builds the snapshot from the row-wise (CSR) representation of the matrix, the column-wise copy is derived
+     *
+     * @param colLB     Lower bound of each variable
+     * @param colUB     Upper bound of each variable
+     * @param integer   {@code true} for the variables constrained to INT
+     * @param objective Multiplier of each variable in the objective function
+     * @param objType   Type of objective function
+     * @param rowLB     Lower bound of each constraint
+     * @param rowUB     Upper bound of each constraint
+     * @param rowStart  Row i has its non zeros in positions {@code [rowStart[i], rowStart[i + 1])}
+     * @param rowIndex  Column index of each non zero
+     * @param rowValue  Value of each non zero
+     */
+    public ModelSnapshot(@NotNull double[] colLB, @NotNull double[] colUB, @NotNull boolean[] integer,
+                         @NotNull double[] objective, @NotNull Model.ObjType objType,
+                         @NotNull double[] rowLB, @NotNull double[] rowUB,
+                         @NotNull int[] rowStart, @NotNull int[] rowIndex, @NotNull double[] rowValue) {
+        this(colLB, colUB, integer, objective, objType, rowLB, rowUB, rowStart, rowIndex, rowValue,
+                new int[0], new int[]{0}, new int[0]);
+    }
+
+    /**
+     * Builds the snapshot of a model with SOS sets, see
+     * {@link #ModelSnapshot(double[], double[], boolean[], double[], Model.ObjType, double[], double[], int[], int[], double[])}
+     *
+     * @param sosType  1 or 2, the type of each SOS set
+     * @param sosStart Set s has its members in positions {@code [sosStart[s], sosStart[s + 1])}
+     * @param sosIndex Column index of each member, the members of a set are sorted by weight
+     */
+    public ModelSnapshot(@NotNull double[] colLB, @NotNull double[] colUB, @NotNull boolean[] integer,
+                         @NotNull double[] objective, @NotNull Model.ObjType objType,
+                         @NotNull double[] rowLB, @NotNull double[] rowUB,
+                         @NotNull int[] rowStart, @NotNull int[] rowIndex, @NotNull double[] rowValue,
+                         @NotNull int[] sosType, @NotNull int[] sosStart, @NotNull int[] sosIndex) {
+        this.sosType = sosType;
+        this.sosStart = sosStart;
+        this.sosIndex = sosIndex;
+        this.nRows = rowLB.length;
+        this.nCols = colLB.length;
+        this.colLB = colLB;
+        this.colUB = colUB;
+        this.integer = integer;
+        this.objective = objective;
+        this.objType = objType;
+        this.rowLB = rowLB;
+        this.rowUB = rowUB;
+        this.rowStart = rowStart;
+        this.rowIndex = rowIndex;
+        this.rowValue = rowValue;
+
+        //Transposition by counting sort, columns end up with increasing row indexes
+        int nnz = rowStart[nRows];
+        colStart = new int[nCols + 1];
+        colIndex = new int[nnz];
+        colValue = new double[nnz];
+        for (int k = 0; k < nnz; k++)
+            colStart[rowIndex[k] + 1]++;
+        for (int j = 0; j < nCols; j++)
+            colStart[j + 1] += colStart[j];
+        int[] next = new int[nCols];
+        System.arraycopy(colStart, 0, next, 0, nCols);
+        for (int i = 0; i < nRows; i++) {
+            for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+                int position = next[rowIndex[k]]++;
+                colIndex[position] = i;
+                colValue[position] = rowValue[k];
+            }
+        }
+
+        //A row locks a direction of a variable if moving that way can violate one of its bounds
+        upLocks = new int[nCols];
+        downLocks = new int[nCols];
+        for (int i = 0; i < nRows; i++) {
+            boolean hasUB = rowUB[i] < Double.POSITIVE_INFINITY;
+            boolean hasLB = rowLB[i] > Double.NEGATIVE_INFINITY;
+            for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+                if (rowValue[k] == 0)
+                    continue;
+                boolean positive = rowValue[k] > 0;
+                if (positive ? hasUB : hasLB)
+                    upLocks[rowIndex[k]]++;
+                if (positive ? hasLB : hasUB)
+                    downLocks[rowIndex[k]]++;
+            }
+        }
+    }
+
+    public int countRows() {
+        return nRows;
+    }
+
+    public int countColumns() {
+        return nCols;
+    }
+
+    public int countNonZeros() {
+        return rowStart[nRows];
+    }
+
+    public int[] getRowStart() {
+        return rowStart;
+    }
+
+    public int[] getRowIndex() {
+        return rowIndex;
+    }
+
+    public double[] getRowValue() {
+        return rowValue;
+    }
+
+    public int[] getColStart() {
+        return colStart;
+    }
+
+    public int[] getColIndex() {
+        return colIndex;
+    }
+
+    public double[] getColValue() {
+        return colValue;
+    }
+
+    public double[] getRowLB() {
+        return rowLB;
+    }
+
+    public double[] getRowUB() {
+        return rowUB;
+    }
+
+    public double[] getColLB() {
+        return colLB;
+    }
+
+    public double[] getColUB() {
+        return colUB;
+    }
+
+    public double[] getObjective() {
+        return objective;
+    }
+
+    public Model.ObjType getObjType() {
+        return objType;
+    }
+
+    /**
+     * @return For each variable, the number of constraints that an increase of the variable can violate
+     */
+    public int[] getUpLocks() {
+        return upLocks;
+    }
+
+    /**
+     * @return For each variable, the number of constraints that a decrease of the variable can violate
+     */
+    public int[] getDownLocks() {
+        return downLocks;
+    }
+
+    /**
+     * @param j Index of a variable
+     * @return {@code True} if the variable is constrained to INT
+     */
+    public boolean isInteger(int j) {
+        return integer[j];
+    }
+
+    /**
+     * @return The indexes of the variables that are constrained to INT, in increasing order
+     */
+    public int[] getIntegerColumns() {
+        return integerColumns(false);
+    }
+
+    /**
+     * @return The indexes of the INT variables with bounds [0, 1], in increasing order
+     */
+    public int[] getBinaryColumns() {
+        return integerColumns(true);
+    }
+
+    private int[] integerColumns(boolean binaryOnly) {
+        int count = 0;
+        for (int j = 0; j < nCols; j++)
+            if (integer[j] && (!binaryOnly || colLB[j] == 0 && colUB[j] == 1))
+                count++;
+        int[] columns = new int[count];
+        int k = 0;
+        for (int j = 0; j < nCols; j++)
+            if (integer[j] && (!binaryOnly || colLB[j] == 0 && colUB[j] == 1))
+                columns[k++] = j;
+        return columns;
+    }
+
+    /**
+     * @param i Index of a constraint
+     * @param x A value for each variable
+     * @return The value of the left member of the i° constraint
+     */
+    public double getRowActivity(int i, @NotNull double[] x) {
+        return ZiKernels.getInstance().sparseDot(rowIndex, rowValue, rowStart[i], rowStart[i + 1], x);
+    }
+
+    /**
+     * @param x        A value for each variable
+     * @param activity Output array, receives the left member of every constraint
+     */
+    public void computeRowActivities(@NotNull double[] x, @NotNull double[] activity) {
+        ZiKernels kernels = ZiKernels.getInstance();
+        for (int i = 0; i < nRows; i++)
+            activity[i] = kernels.sparseDot(rowIndex, rowValue, rowStart[i], rowStart[i + 1], x);
+    }
+
+    public int countSOS() {
+        return sosType.length;
+    }
+
+    /**
+     * @return 1 or 2 for each SOS set
+     */
+    public int[] getSOSType() {
+        return sosType;
+    }
+
+    public int[] getSOSStart() {
+        return sosStart;
+    }
+
+    public int[] getSOSIndex() {
+        return sosIndex;
+    }
+
+    /**
+     * A SOS1 set allows at most one non zero member, a SOS2 set at most two and consecutive. A value within the
+     * default integrality tolerance counts as zero
+     *
+     * @param x A value for each variable
+     * @return The index of the first violated SOS set, -1 if they're all satisfied
+     */
+    public int findViolatedSOS(@NotNull double[] x) {
+        return findViolatedSOS(x, NumVariable.getIntegralityTolerance());
+    }
+
+    /**
+     * @param x         A value for each variable
+     * @param tolerance A value within the tolerance counts as zero
+     * @return The index of the first violated SOS set, -1 if they're all satisfied
+     */
+    public int findViolatedSOS(@NotNull double[] x, double tolerance) {
+        for (int s = 0; s < sosType.length; s++)
+            if (isSOSViolated(s, x, tolerance))
+                return s;
+        return -1;
+    }
+
+    /**
+     * @param s         Index of a SOS set
+     * @param x         A value for each variable
+     * @param tolerance A value within the tolerance counts as zero
+     * @return {@code True} if the set has too many non zero members, or two that aren't consecutive
+     */
+    public boolean isSOSViolated(int s, @NotNull double[] x, double tolerance) {
+        int first = -1;
+        int count = 0;
+        for (int k = sosStart[s]; k < sosStart[s + 1]; k++) {
+            if (Math.abs(x[sosIndex[k]]) > tolerance) {
+                if (first == -1)
+                    first = k;
+                count++;
+                if (count > sosType[s] || k - first >= sosType[s])
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param x A value for each variable
+     * @return The value of the objective function
+     */
+    public double getObjectiveValue(@NotNull double[] x) {
+        return ZiKernels.getInstance().dot(objective, x);
+    }
+
+    /**
+     * @param values A value for each variable of the snapshot, within the bounds
+     * @return The variables of the model with the given values, the INT ones keep their type only if the value is
+     * integer, otherwise they're returned relaxed
+     */
+    public NumVariable[] toNumVariables(@NotNull double[] values) throws InvalidAttributeValueException, NumVariable.ValueOutOfBoundsException {
+        NumVariable[] vars = new NumVariable[values.length];
+        for (int j = 0; j < values.length; j++) {
+            NumVariable.VarType type = integer[j] && ZiRound.computeZI(values[j]) == 0 ?
+                    NumVariable.VarType.INT : NumVariable.VarType.REAL;
+            vars[j] = new NumVariable(type, values[j], colUB[j], colLB[j]);
+        }
+        return vars;
+    }
+}
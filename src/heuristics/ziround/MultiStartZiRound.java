@@ -0,0 +1,101 @@
+package heuristics.ziround;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Runs {@link ZiRound} several times concurrently from the same relaxed solution, each start processing the INT
+ * variables in a different seeded random order.
+ * <p>
+ * All the starts share an {@link Incumbent}: feasible solutions are published there and a start stops as soon as it
+ * can no longer beat it
+ */
+public class MultiStartZiRound {
+    private final ModelSnapshot snapshot;
+    private final double[] relaxedSolutions;
+    private final double threshold;
+    private final Consumer<ZiRound> configurator;
+    private final Incumbent incumbent;
+
+    /**
+     * @param snapshot         The model shared by all the starts
+     * @param relaxedSolutions A solution of the relaxed model
+     * @param threshold        threshold param for the ZiRound algorithm
+     * @param configurator     Applies the settings common to every start (limits, extensions...), can be {@code null}
+     */
+    public MultiStartZiRound(@NotNull ModelSnapshot snapshot, @NotNull double[] relaxedSolutions, double threshold,
+                             Consumer<ZiRound> configurator) {
+        this.snapshot = snapshot;
+        this.relaxedSolutions = relaxedSolutions;
+        this.threshold = threshold;
+        this.configurator = configurator;
+        this.incumbent = new Incumbent(snapshot.getObjType());
+    }
+
+    /**
+     * @param starts  Number of starts, the first one keeps the natural order of the variables
+     * @param threads Number of starts executed at the same time
+     * @param seed    Seed of the orders, the same seed gives the same orders
+     * @return The result of every start that completed, in order of start
+     * @throws InterruptedException If the calling thread is interrupted while waiting
+     */
+    public List<HeuristicResult> run(int starts, int threads, long seed) throws InterruptedException {
+        int[] integerColumns = snapshot.getIntegerColumns();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<HeuristicResult>> futures = new ArrayList<>();
+        //One generator for all the orders: Random instances with consecutive seeds start with correlated values
+        Random random = new Random(seed);
+        for (int s = 0; s < starts; s++) {
+            int[] order = integerColumns.clone();
+            if (s > 0)
+                shuffle(order, random);
+            futures.add(executor.submit(() -> {
+                ZiRound ziRound = new ZiRound(snapshot, relaxedSolutions, threshold);
+                if (configurator != null)
+                    configurator.accept(ziRound);
+                ziRound.setIntegerSolutions(order);
+                ziRound.setIncumbent(incumbent);
+                return ziRound.applyHeuristic();
+            }));
+        }
+
+        List<HeuristicResult> results = new ArrayList<>();
+        try {
+            for (Future<HeuristicResult> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    e.printStackTrace();
+                    //The other starts are still valid
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    /**
+     * @return The best feasible solution found by the starts
+     */
+    public Incumbent getIncumbent() {
+        return incumbent;
+    }
+
+    /**
+     * Fisher-Yates shuffle
+     */
+    private static void shuffle(int[] array, Random random) {
+        for (int k = array.length - 1; k > 0; k--) {
+            int swap = random.nextInt(k + 1);
+            int tmp = array[k];
+            array[k] = array[swap];
+            array[swap] = tmp;
+        }
+    }
+}
@@ -16,6 +16,20 @@ public class NumVariable {
     private double upBound;
     private double lowBound;
 
+    /**
+     * Values closer than this to an integer are considered integer, the default can be changed with the system
+     * property {@code ziround.integralityTolerance}
+     */
+    public static final double DEFAULT_INTEGRALITY_TOLERANCE = 1e-9;
+    /**
+     * Largest tolerance accepted: moving a value this far onto an integer can't break a constraint by more than the
+     * usual feasibility tolerances
+     */
+    public static final double MAX_INTEGRALITY_TOLERANCE = 1e-5;
+    private static final String TOLERANCE_PROPERTY = "ziround.integralityTolerance";
+    private static final double integralityTolerance = checkIntegralityTolerance(
+            Double.parseDouble(System.getProperty(TOLERANCE_PROPERTY, String.valueOf(DEFAULT_INTEGRALITY_TOLERANCE))));
+
     private static final String VALUE_NOT_INT_ERROR = "The var's type is Integer but the value is not";
     private static final String VALUE_OUT_OF_BOUNDS_ERROR = "The var's value can't be out of the given bounds";
 
@@ -49,10 +63,40 @@ public class NumVariable {
 
     /**
      * @param value A numerical value
-     * @return {@code True} if the value is integer
+     * @return {@code True} if the value is integer, within the default integrality tolerance
+     */
+    public static boolean isInt(double value) {
+        return isInt(value, integralityTolerance);
+    }
+
+    /**
+     * @param value     A numerical value
+     * @param tolerance Distance from an integer below which a value is considered integer
+     * @return {@code True} if the value is integer, within the tolerance
+     */
+    public static boolean isInt(double value, double tolerance) {
+        return Math.min(value - Math.floor(value), Math.ceil(value) - value) <= tolerance;
+    }
+
+    /**
+     * The default is read once from the system property, a run can use its own tolerance (see
+     * {@link ZiRound#setIntegralityTolerance(double)}) without changing the one of the other runs
+     *
+     * @return The default distance from an integer below which a value is considered integer
+     */
+    public static double getIntegralityTolerance() {
+        return integralityTolerance;
+    }
+
+    /**
+     * @param tolerance An integrality tolerance
+     * @return The tolerance
+     * @throws IllegalArgumentException If the tolerance isn't in [0, {@link #MAX_INTEGRALITY_TOLERANCE}]
      */
-    private boolean isInt(double value) {
-        return Math.min(value - Math.floor(value), Math.ceil(value) - value) == 0;
+    public static double checkIntegralityTolerance(double tolerance) {
+        if (!(tolerance >= 0 && tolerance <= MAX_INTEGRALITY_TOLERANCE))
+            throw new IllegalArgumentException("The integrality tolerance must be in [0, " + MAX_INTEGRALITY_TOLERANCE + "]");
+        return tolerance;
     }
 
     /**
@@ -0,0 +1,125 @@
+package heuristics.ziround;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Outcome of a {@link Presolve}: the reduced snapshot and what is needed to bring its solutions back to the index
+ * space of the original model
+ */
+public class PostsolveMap {
+    private final ModelSnapshot reduced;
+    private final int[] originalColumns;
+    private final int[] reducedColumns;
+    private final double[] fixedValues;
+    private final int[] originalRows;
+    private final double objectiveOffset;
+    private final boolean infeasible;
+
+    /**
+     * @param reduced         The presolved snapshot, {@code null} if the model was proven infeasible
+     * @param originalColumns Original index of each column of the reduced snapshot
+     * @param reducedColumns  Reduced index of each original column, -1 for the removed ones
+     * @param fixedValues     Value of the removed columns, indexed by original column
+     * @param originalRows    Original index of each row of the reduced snapshot
+     * @param objectiveOffset Contribution of the removed columns to the objective function
+     * @param infeasible      {@code true} if the presolve proved the model infeasible
+     */
+    PostsolveMap(ModelSnapshot reduced, int[] originalColumns, int[] reducedColumns, double[] fixedValues,
+                 int[] originalRows, double objectiveOffset, boolean infeasible) {
+        this.reduced = reduced;
+        this.originalColumns = originalColumns;
+        this.reducedColumns = reducedColumns;
+        this.fixedValues = fixedValues;
+        this.originalRows = originalRows;
+        this.objectiveOffset = objectiveOffset;
+        this.infeasible = infeasible;
+    }
+
+    /**
+     * @return The presolved snapshot, {@code null} if {@link #isInfeasible()}
+     */
+    public ModelSnapshot getReducedSnapshot() {
+        return reduced;
+    }
+
+    /**
+     * @return {@code True} if the presolve found a constraint or a bound that can't be satisfied
+     */
+    public boolean isInfeasible() {
+        return infeasible;
+    }
+
+    /**
+     * @return The value to add to the objective of the reduced snapshot to get the original objective value
+     */
+    public double getObjectiveOffset() {
+        return objectiveOffset;
+    }
+
+    /**
+     * @param j Index of a column of the reduced snapshot
+     * @return The index of the same column in the original model
+     */
+    public int getOriginalColumn(int j) {
+        return originalColumns[j];
+    }
+
+    /**
+     * @param j Index of a column of the original model
+     * @return The index of the same column in the reduced snapshot, -1 if it was removed
+     */
+    public int getReducedColumn(int j) {
+        return reducedColumns[j];
+    }
+
+    /**
+     * @param i Index of a row of the reduced snapshot
+     * @return The index of the same row in the original model
+     */
+    public int getOriginalRow(int i) {
+        return originalRows[i];
+    }
+
+    public int countRemovedColumns() {
+        return reducedColumns.length - originalColumns.length;
+    }
+
+    /**
+     * @param original A value for each column of the original model, e.g. a relaxed solution
+     * @return The values of the columns kept by the presolve
+     */
+    public double[] reduce(@NotNull double[] original) {
+        double[] values = new double[originalColumns.length];
+        for (int j = 0; j < values.length; j++)
+            values[j] = original[originalColumns[j]];
+        return values;
+    }
+
+    /**
+     * @param original Indexes of original columns
+     * @return The reduced indexes of the columns that weren't removed, in the same order
+     */
+    public int[] reduceIndexes(@NotNull int[] original) {
+        int count = 0;
+        for (int j : original)
+            if (reducedColumns[j] != -1)
+                count++;
+        int[] indexes = new int[count];
+        int k = 0;
+        for (int j : original)
+            if (reducedColumns[j] != -1)
+                indexes[k++] = reducedColumns[j];
+        return indexes;
+    }
+
+    /**
+     * @param reducedValues A value for each column of the reduced snapshot
+     * @return The solution in the original index space, removed columns take the value they were fixed to
+     */
+    public double[] expand(@NotNull double[] reducedValues) {
+        double[] values = fixedValues.clone();
+        for (int j = 0; j < reducedValues.length; j++)
+            values[originalColumns[j]] = reducedValues[j];
+        return values;
+    }
+}
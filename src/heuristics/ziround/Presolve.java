@@ -0,0 +1,332 @@
+package heuristics.ziround;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lightweight presolve of a {@link ModelSnapshot}, meant to shrink the model before the O(nnz) passes of the
+ * heuristics.
+ * <p>
+ * The reductions are repeated until nothing changes:
+ * <ul>
+ *     <li>fixed columns are removed and moved into the bounds of their rows;</li>
+ *     <li>empty rows are removed, after checking that 0 is within their bounds;</li>
+ *     <li>singleton rows become bounds of their variable;</li>
+ *     <li>rows that are multiples of another row are merged into it, intersecting the ranges.</li>
+ * </ul>
+ * Bounds of INT variables are rounded inwards. The original snapshot is only read
+ */
+public class Presolve {
+    private static final double TOLERANCE = FeasibilityVerifier.DEFAULT_TOLERANCE;
+    /**
+     * Relative tolerance on the coefficients of two rows to consider them parallel
+     */
+    private static final double PARALLEL_TOLERANCE = 1e-12;
+    private static final int MAX_ROUNDS = 20;
+
+    private final ModelSnapshot snapshot;
+    private final double integralityTolerance;
+
+    private double[] lb;
+    private double[] ub;
+    private double[] rowLB;
+    private double[] rowUB;
+    private boolean[] rowRemoved;
+    private boolean[] colRemoved;
+    private int[] rowLength;
+    private double[] fixedValues;
+    private double objectiveOffset;
+    private boolean infeasible;
+
+    /**
+     * @param snapshot The model to presolve
+     */
+    public Presolve(@NotNull ModelSnapshot snapshot) {
+        this(snapshot, NumVariable.getIntegralityTolerance());
+    }
+
+    /**
+     * @param snapshot             The model to presolve
+     * @param integralityTolerance Slack allowed when the implied bounds of an INT variable are rounded
+     */
+    public Presolve(@NotNull ModelSnapshot snapshot, double integralityTolerance) {
+        this.snapshot = snapshot;
+        this.integralityTolerance = integralityTolerance;
+    }
+
+    /**
+     * Runs the reductions, each call starts again from the original snapshot
+     *
+     * @return The reduced snapshot and the map to bring its solutions back to the original model
+     */
+    public PostsolveMap apply() {
+        int nRows = snapshot.countRows();
+        int nCols = snapshot.countColumns();
+        lb = snapshot.getColLB().clone();
+        ub = snapshot.getColUB().clone();
+        rowLB = snapshot.getRowLB().clone();
+        rowUB = snapshot.getRowUB().clone();
+        rowRemoved = new boolean[nRows];
+        colRemoved = new boolean[nCols];
+        rowLength = new int[nRows];
+        fixedValues = new double[nCols];
+        objectiveOffset = 0;
+        infeasible = false;
+        int[] rowStart = snapshot.getRowStart();
+        double[] rowValue = snapshot.getRowValue();
+        //The explicit zeros stored in the matrix don't count, like in the locks of the snapshot
+        for (int i = 0; i < nRows; i++)
+            for (int k = rowStart[i]; k < rowStart[i + 1]; k++)
+                if (rowValue[k] != 0)
+                    rowLength[i]++;
+        for (int j = 0; j < nCols && !infeasible; j++)
+            tightenBounds(j, lb[j], ub[j]);
+
+        boolean changed = true;
+        for (int round = 0; round < MAX_ROUNDS && changed && !infeasible; round++) {
+            changed = removeFixedColumns();
+            changed |= removeSmallRows();
+            changed |= mergeParallelRows();
+        }
+        if (infeasible) {
+            int[] reducedColumns = new int[nCols];
+            Arrays.fill(reducedColumns, -1);
+            return new PostsolveMap(null, new int[0], reducedColumns, fixedValues, new int[0], objectiveOffset, true);
+        }
+        return build();
+    }
+
+    /**
+     * Sets new bounds on a variable, rounding the ones of INT variables
+     */
+    private void tightenBounds(int j, double newLB, double newUB) {
+        if (snapshot.isInteger(j)) {
+            newLB = Math.ceil(newLB - integralityTolerance);
+            newUB = Math.floor(newUB + integralityTolerance);
+        }
+        lb[j] = Math.max(lb[j], newLB);
+        ub[j] = Math.min(ub[j], newUB);
+        if (lb[j] > ub[j] + TOLERANCE)
+            infeasible = true;
+        else if (lb[j] > ub[j])
+            ub[j] = lb[j];
+    }
+
+    /**
+     * @return {@code True} if a column was removed
+     */
+    private boolean removeFixedColumns() {
+        int[] colStart = snapshot.getColStart();
+        int[] colIndex = snapshot.getColIndex();
+        double[] colValue = snapshot.getColValue();
+        double[] objective = snapshot.getObjective();
+        boolean changed = false;
+        for (int j = 0; j < colRemoved.length; j++) {
+            if (colRemoved[j] || lb[j] != ub[j])
+                continue;
+            double value = lb[j];
+            for (int k = colStart[j]; k < colStart[j + 1]; k++) {
+                int i = colIndex[k];
+                if (rowRemoved[i] || colValue[k] == 0)
+                    continue;
+                rowLB[i] -= colValue[k] * value;
+                rowUB[i] -= colValue[k] * value;
+                rowLength[i]--;
+            }
+            fixedValues[j] = value;
+            objectiveOffset += objective[j] * value;
+            colRemoved[j] = true;
+            changed = true;
+        }
+        return changed;
+    }
+
+    /**
+     * Removes the empty rows and turns the singleton rows into bounds
+     *
+     * @return {@code True} if a row was removed
+     */
+    private boolean removeSmallRows() {
+        int[] rowStart = snapshot.getRowStart();
+        int[] rowIndex = snapshot.getRowIndex();
+        double[] rowValue = snapshot.getRowValue();
+        boolean changed = false;
+        for (int i = 0; i < rowRemoved.length && !infeasible; i++) {
+            if (rowRemoved[i] || rowLength[i] > 1)
+                continue;
+            if (rowLength[i] == 0) {
+                if (rowLB[i] > TOLERANCE || rowUB[i] < -TOLERANCE)
+                    infeasible = true;
+            } else {
+                for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+                    if (!isKept(k))
+                        continue;
+                    int j = rowIndex[k];
+                    double a = rowValue[k];
+                    if (a > 0)
+                        tightenBounds(j, rowLB[i] / a, rowUB[i] / a);
+                    else
+                        tightenBounds(j, rowUB[i] / a, rowLB[i] / a);
+                }
+            }
+            rowRemoved[i] = true;
+            changed = true;
+        }
+        return changed;
+    }
+
+    /**
+     * Rows with the same columns are grouped by hash, a row that is a multiple of an earlier one is merged into it
+     *
+     * @return {@code True} if a row was removed
+     */
+    private boolean mergeParallelRows() {
+        Map<Integer, List<Integer>> patterns = new HashMap<>();
+        boolean changed = false;
+        for (int i = 0; i < rowRemoved.length && !infeasible; i++) {
+            if (rowRemoved[i])
+                continue;
+            List<Integer> candidates = patterns.computeIfAbsent(patternHash(i), key -> new ArrayList<>());
+            boolean merged = false;
+            for (int r : candidates) {
+                double scale = parallelScale(r, i);
+                if (scale != 0) {
+                    //row i = scale * row r
+                    if (scale > 0) {
+                        rowLB[r] = Math.max(rowLB[r], rowLB[i] / scale);
+                        rowUB[r] = Math.min(rowUB[r], rowUB[i] / scale);
+                    } else {
+                        rowLB[r] = Math.max(rowLB[r], rowUB[i] / scale);
+                        rowUB[r] = Math.min(rowUB[r], rowLB[i] / scale);
+                    }
+                    if (rowLB[r] > rowUB[r] + TOLERANCE)
+                        infeasible = true;
+                    else if (rowLB[r] > rowUB[r])
+                        rowUB[r] = rowLB[r];
+                    rowRemoved[i] = true;
+                    merged = changed = true;
+                    break;
+                }
+            }
+            if (!merged)
+                candidates.add(i);
+        }
+        return changed;
+    }
+
+    private int patternHash(int i) {
+        int[] rowStart = snapshot.getRowStart();
+        int[] rowIndex = snapshot.getRowIndex();
+        int hash = rowLength[i];
+        for (int k = rowStart[i]; k < rowStart[i + 1]; k++)
+            if (isKept(k))
+                hash = 31 * hash + rowIndex[k];
+        return hash;
+    }
+
+    /**
+     * @return s such that row i = s * row r on the columns that are left, 0 if the rows aren't parallel
+     */
+    private double parallelScale(int r, int i) {
+        if (rowLength[r] != rowLength[i])
+            return 0;
+        int[] rowStart = snapshot.getRowStart();
+        int[] rowIndex = snapshot.getRowIndex();
+        double[] rowValue = snapshot.getRowValue();
+        int pr = rowStart[r];
+        int pi = rowStart[i];
+        double scale = 0;
+        while (true) {
+            while (pr < rowStart[r + 1] && !isKept(pr))
+                pr++;
+            while (pi < rowStart[i + 1] && !isKept(pi))
+                pi++;
+            if (pr == rowStart[r + 1] || pi == rowStart[i + 1])
+                return scale;
+            if (rowIndex[pr] != rowIndex[pi])
+                return 0;
+            if (scale == 0)
+                scale = rowValue[pi] / rowValue[pr];
+            else if (Math.abs(rowValue[pi] - scale * rowValue[pr]) > PARALLEL_TOLERANCE * Math.abs(rowValue[pi]))
+                return 0;
+            pr++;
+            pi++;
+        }
+    }
+
+    /**
+     * @param k Position of a coefficient in the CSR matrix
+     * @return {@code True} if the coefficient is non zero and its column is left
+     */
+    private boolean isKept(int k) {
+        return snapshot.getRowValue()[k] != 0 && !colRemoved[snapshot.getRowIndex()[k]];
+    }
+
+    /**
+     * Copies the rows and columns that are left into a new snapshot
+     */
+    private PostsolveMap build() {
+        int nCols = colRemoved.length;
+        int[] reducedColumns = new int[nCols];
+        int keptCols = 0;
+        for (int j = 0; j < nCols; j++)
+            reducedColumns[j] = colRemoved[j] ? -1 : keptCols++;
+        int[] originalColumns = new int[keptCols];
+        double[] newLB = new double[keptCols];
+        double[] newUB = new double[keptCols];
+        boolean[] integer = new boolean[keptCols];
+        double[] objective = new double[keptCols];
+        for (int j = 0; j < nCols; j++) {
+            int c = reducedColumns[j];
+            if (c == -1)
+                continue;
+            originalColumns[c] = j;
+            newLB[c] = lb[j];
+            newUB[c] = ub[j];
+            integer[c] = snapshot.isInteger(j);
+            objective[c] = snapshot.getObjective()[j];
+        }
+
+        int keptRows = 0;
+        int nnz = 0;
+        for (int i = 0; i < rowRemoved.length; i++) {
+            if (!rowRemoved[i]) {
+                keptRows++;
+                nnz += rowLength[i];
+            }
+        }
+        int[] originalRows = new int[keptRows];
+        double[] newRowLB = new double[keptRows];
+        double[] newRowUB = new double[keptRows];
+        int[] newRowStart = new int[keptRows + 1];
+        int[] newRowIndex = new int[nnz];
+        double[] newRowValue = new double[nnz];
+        int[] rowStart = snapshot.getRowStart();
+        int[] rowIndex = snapshot.getRowIndex();
+        double[] rowValue = snapshot.getRowValue();
+        int r = 0;
+        int p = 0;
+        for (int i = 0; i < rowRemoved.length; i++) {
+            if (rowRemoved[i])
+                continue;
+            originalRows[r] = i;
+            newRowLB[r] = rowLB[i];
+            newRowUB[r] = rowUB[i];
+            for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+                if (isKept(k)) {
+                    newRowIndex[p] = reducedColumns[rowIndex[k]];
+                    newRowValue[p++] = rowValue[k];
+                }
+            }
+            newRowStart[++r] = p;
+        }
+        ModelSnapshot reduced = new ModelSnapshot(newLB, newUB, integer, objective, snapshot.getObjType(),
+                newRowLB, newRowUB, newRowStart, newRowIndex, newRowValue);
+        return new PostsolveMap(reduced, originalColumns, reducedColumns, fixedValues, originalRows, objectiveOffset, false);
+    }
+}
@@ -0,0 +1,77 @@
+package heuristics.ziround;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.management.InvalidAttributeValueException;
+import java.util.Random;
+
+/**
+ * Randomized rounding: each fractional variable is rounded up with a probability equal to its fractional part.
+ * Several independent attempts are made, the best one is kept: a feasible attempt beats an infeasible one, then
+ * the objective decides, among infeasible attempts the one with less violated constraints wins
+ */
+public class RandomizedRounding extends RoundingHeuristic {
+    public static final int DEFAULT_ATTEMPTS = 16;
+
+    private final long seed;
+    private final int attempts;
+
+    /**
+     * @param snapshot         The model to round
+     * @param relaxedSolutions A solution of the relaxed model, one value for each variable of the snapshot
+     * @param seed             Seed of the random generator, runs with the same seed give the same result
+     * @param attempts         Number of independent roundings
+     */
+    public RandomizedRounding(@NotNull ModelSnapshot snapshot, @NotNull double[] relaxedSolutions, long seed, int attempts) {
+        super(snapshot, relaxedSolutions);
+        this.seed = seed;
+        this.attempts = attempts;
+    }
+
+    @Override
+    public HeuristicResult applyHeuristic() throws InvalidAttributeValueException, NumVariable.ValueOutOfBoundsException {
+        long startTime = System.nanoTime();
+        Random random = new Random(seed);
+        double[] colLB = snapshot.getColLB();
+        double[] colUB = snapshot.getColUB();
+
+        double[] best = null;
+        int bestViolated = Integer.MAX_VALUE;
+        double bestObjective = 0;
+        long shifts = 0;
+        int attempt = 0;
+        HeuristicResult.Status stopStatus = null;
+        for (; attempt < attempts; attempt++) {
+            if (isCancelled()) {
+                stopStatus = HeuristicResult.Status.CANCELLED;
+                break;
+            }
+            initState();
+            for (int j : integerColumns) {
+                double value = x[j];
+                if (NumVariable.isInt(value, integralityTolerance))
+                    continue;
+                double fraction = value - Math.floor(value);
+                double rounded = random.nextDouble() < fraction ? Math.ceil(value) : Math.floor(value);
+                shift(j, Math.max(Math.ceil(colLB[j]), Math.min(Math.floor(colUB[j]), rounded)));
+                shifts++;
+            }
+            int violated = countViolatedRows();
+            double objectiveValue = snapshot.getObjectiveValue(x);
+            if (best == null || violated < bestViolated
+                    || violated == bestViolated && isBetter(objectiveValue, bestObjective)) {
+                best = x;
+                bestViolated = violated;
+                bestObjective = objectiveValue;
+            }
+        }
+
+        if (best == null)
+            initState();
+        else {
+            x = best;
+            snapshot.computeRowActivities(x, activity);
+        }
+        return finish(stopStatus, attempt, shifts, startTime);
+    }
+}
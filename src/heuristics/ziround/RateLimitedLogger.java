@@ -0,0 +1,63 @@
+package heuristics.ziround;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.PrintStream;
+
+/**
+ * Logger that writes at most {@code maxMessages} lines every {@code intervalMillis}, the others are dropped and
+ * only counted, so that logging millions of events can't dominate the run time
+ * <p>
+ * Thread safe
+ */
+public class RateLimitedLogger {
+    private final PrintStream out;
+    private final int maxMessages;
+    private final long intervalNanos;
+
+    private long windowStart;
+    private int windowMessages;
+    private long suppressed;
+
+    /**
+     * @param out            Destination of the messages
+     * @param maxMessages    Messages written in each interval
+     * @param intervalMillis Length of an interval
+     */
+    public RateLimitedLogger(@NotNull PrintStream out, int maxMessages, long intervalMillis) {
+        this.out = out;
+        this.maxMessages = maxMessages;
+        this.intervalNanos = intervalMillis * 1_000_000;
+        this.windowStart = System.nanoTime();
+    }
+
+    /**
+     * @param message Written if the current interval still has room, counted as suppressed otherwise
+     */
+    public synchronized void log(String message) {
+        long now = System.nanoTime();
+        if (now - windowStart >= intervalNanos) {
+            if (suppressed > 0)
+                out.println("(" + suppressed + " messages suppressed)");
+            windowStart = now;
+            windowMessages = 0;
+            suppressed = 0;
+        }
+        if (windowMessages < maxMessages) {
+            windowMessages++;
+            out.println(message);
+        } else
+            suppressed++;
+    }
+
+    /**
+     * Writes the number of messages dropped in the current interval
+     */
+    public synchronized void flush() {
+        if (suppressed > 0) {
+            out.println("(" + suppressed + " messages suppressed)");
+            suppressed = 0;
+        }
+        out.flush();
+    }
+}
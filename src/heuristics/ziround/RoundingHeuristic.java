@@ -0,0 +1,149 @@
+package heuristics.ziround;
+
+import heuristics.interfaces.Heuristic;
+import heuristics.interfaces.HeuristicListener;
+import org.jetbrains.annotations.NotNull;
+
+import javax.management.InvalidAttributeValueException;
+
+/**
+ * Base class for the rounding heuristics that work on a {@link ModelSnapshot}: keeps the working solution and the
+ * activity of every constraint in sync, the snapshot and the relaxed solution are never written so they can be
+ * shared between heuristics running concurrently
+ */
+public abstract class RoundingHeuristic implements Heuristic {
+    /**
+     * Violation accepted on a constraint before it's considered infeasible
+     */
+    protected static final double FEASIBILITY_TOLERANCE = FeasibilityVerifier.DEFAULT_TOLERANCE;
+
+    protected final ModelSnapshot snapshot;
+    protected final double[] relaxedSolutions;
+    protected final int[] integerColumns;
+    protected CancellationToken cancellationToken;
+    protected double integralityTolerance = NumVariable.getIntegralityTolerance();
+    private HeuristicListener solutionListener;
+
+    protected double[] x;
+    protected double[] activity;
+
+    /**
+     * @param snapshot         The model to round
+     * @param relaxedSolutions A solution of the relaxed model, one value for each variable of the snapshot
+     */
+    protected RoundingHeuristic(@NotNull ModelSnapshot snapshot, @NotNull double[] relaxedSolutions) {
+        this.snapshot = snapshot;
+        this.relaxedSolutions = relaxedSolutions;
+        this.integerColumns = snapshot.getIntegerColumns();
+    }
+
+    @Override
+    public void setCancellationToken(CancellationToken cancellationToken) {
+        this.cancellationToken = cancellationToken;
+    }
+
+    /**
+     * @param integralityTolerance Distance from an integer below which a value is considered integer, see
+     *                             {@link ZiRound#setIntegralityTolerance(double)}
+     * @throws IllegalArgumentException If the tolerance isn't in [0, {@link NumVariable#MAX_INTEGRALITY_TOLERANCE}]
+     */
+    public void setIntegralityTolerance(double integralityTolerance) {
+        this.integralityTolerance = NumVariable.checkIntegralityTolerance(integralityTolerance);
+    }
+
+    @Override
+    public void setHeuristicListener(HeuristicListener listener) {
+        solutionListener = listener;
+    }
+
+    protected boolean isCancelled() {
+        return cancellationToken != null && cancellationToken.isCancelled();
+    }
+
+    /**
+     * Copies the relaxed solution, clamped in the bounds, and computes the activities
+     */
+    protected void initState() {
+        double[] colLB = snapshot.getColLB();
+        double[] colUB = snapshot.getColUB();
+        x = new double[snapshot.countColumns()];
+        for (int j = 0; j < x.length; j++)
+            x[j] = Math.max(colLB[j], Math.min(colUB[j], relaxedSolutions[j]));
+        activity = new double[snapshot.countRows()];
+        snapshot.computeRowActivities(x, activity);
+    }
+
+    /**
+     * Moves a variable to a new value, updating the activities of the constraints it appears in
+     *
+     * @param j     Index of a variable
+     * @param value The new value of the variable
+     */
+    protected void shift(int j, double value) {
+        double delta = value - x[j];
+        int[] colStart = snapshot.getColStart();
+        int[] colIndex = snapshot.getColIndex();
+        double[] colValue = snapshot.getColValue();
+        for (int k = colStart[j]; k < colStart[j + 1]; k++)
+            activity[colIndex[k]] += colValue[k] * delta;
+        x[j] = value;
+    }
+
+    /**
+     * @param i Index of a constraint
+     * @return How much the current activity is out of the constraint's range, 0 if satisfied
+     */
+    protected double rowViolation(int i) {
+        return Math.max(0, Math.max(snapshot.getRowLB()[i] - activity[i], activity[i] - snapshot.getRowUB()[i]));
+    }
+
+    /**
+     * @return The number of constraints violated by more than {@link #FEASIBILITY_TOLERANCE}
+     */
+    protected int countViolatedRows() {
+        int count = 0;
+        for (int i = 0; i < activity.length; i++)
+            if (rowViolation(i) > FEASIBILITY_TOLERANCE)
+                count++;
+        return count;
+    }
+
+    /**
+     * @param a An objective value
+     * @param b Another objective value
+     * @return {@code True} if {@code a} is strictly better than {@code b} for the objective of the snapshot
+     */
+    protected boolean isBetter(double a, double b) {
+        return snapshot.getObjType() == Model.ObjType.MIN ? a < b : a > b;
+    }
+
+    /**
+     * Builds the result of the run from the working solution and notifies the listener
+     *
+     * @param stopStatus Reason of an early stop, {@code null} if the run completed
+     * @param passes     Passes over the variables
+     * @param shifts     Variables moved
+     * @param startTime  {@link System#nanoTime()} at the start of the run
+     * @return {@link HeuristicResult.Status#SOLVED} if every INT variable is integer and no constraint or SOS set is
+     * violated
+     */
+    protected HeuristicResult finish(HeuristicResult.Status stopStatus, int passes, long shifts, long startTime)
+            throws InvalidAttributeValueException, NumVariable.ValueOutOfBoundsException {
+        int fractionalCount = ZiRound.countFractional(x, integerColumns, integralityTolerance);
+        HeuristicResult.Status status = stopStatus;
+        if (fractionalCount == 0 && countViolatedRows() == 0 && snapshot.findViolatedSOS(x, integralityTolerance) == -1)
+            status = HeuristicResult.Status.SOLVED;
+        else if (status == null)
+            status = HeuristicResult.Status.STALLED;
+
+        HeuristicResult result = new HeuristicResult(status, snapshot.toNumVariables(x), x.clone(), fractionalCount,
+                passes, shifts, System.nanoTime() - startTime);
+        if (solutionListener != null) {
+            if (result.isSolved())
+                solutionListener.onSuccess();
+            else
+                solutionListener.onFail();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,46 @@
+package heuristics.ziround;
+
+/**
+ * Plain loops implementation of {@link ZiKernels}, used when the Vector API isn't available
+ */
+class ScalarZiKernels extends ZiKernels {
+
+    @Override
+    public void zis(double[] values, int[] index, double[] out, double tolerance) {
+        for (int k = 0; k < index.length; k++)
+            out[k] = ZiRound.computeZI(values[index[k]], tolerance);
+    }
+
+    @Override
+    public int countFractional(double[] values, int[] index, double tolerance) {
+        int count = 0;
+        for (int j : index)
+            if (ZiRound.computeZI(values[j], tolerance) != 0)
+                count++;
+        return count;
+    }
+
+    @Override
+    public double sum(double[] values) {
+        double sum = 0;
+        for (double value : values)
+            sum += value;
+        return sum;
+    }
+
+    @Override
+    public double dot(double[] a, double[] b) {
+        double sum = 0;
+        for (int k = 0; k < a.length; k++)
+            sum += a[k] * b[k];
+        return sum;
+    }
+
+    @Override
+    public double sparseDot(int[] index, double[] value, int from, int to, double[] x) {
+        double sum = 0;
+        for (int k = from; k < to; k++)
+            sum += value[k] * x[index[k]];
+        return sum;
+    }
+}
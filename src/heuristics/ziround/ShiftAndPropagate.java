@@ -0,0 +1,111 @@
+package heuristics.ziround;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.management.InvalidAttributeValueException;
+
+/**
+ * Simplified shift-and-propagate: every fractional variable is first rounded to its nearest integer, then the
+ * violated constraints are repaired by shifting one of their variables, INT variables by whole units and REAL
+ * variables continuously. Every shift is propagated to the activities of the constraints of the shifted variable
+ * and is accepted only if it decreases the total violation of those constraints
+ */
+public class ShiftAndPropagate extends RoundingHeuristic {
+    public static final int DEFAULT_MAX_PASSES = 100;
+
+    private final int maxPasses;
+
+    /**
+     * @param snapshot         The model to round
+     * @param relaxedSolutions A solution of the relaxed model, one value for each variable of the snapshot
+     * @param maxPasses        Maximum number of repair passes over the violated constraints
+     */
+    public ShiftAndPropagate(@NotNull ModelSnapshot snapshot, @NotNull double[] relaxedSolutions, int maxPasses) {
+        super(snapshot, relaxedSolutions);
+        this.maxPasses = maxPasses;
+    }
+
+    @Override
+    public HeuristicResult applyHeuristic() throws InvalidAttributeValueException, NumVariable.ValueOutOfBoundsException {
+        long startTime = System.nanoTime();
+        initState();
+        double[] colLB = snapshot.getColLB();
+        double[] colUB = snapshot.getColUB();
+
+        long shifts = 0;
+        for (int j : integerColumns) {
+            if (ZiRound.computeZI(x[j], integralityTolerance) != 0) {
+                shift(j, Math.max(Math.ceil(colLB[j]), Math.min(Math.floor(colUB[j]), Math.rint(x[j]))));
+                shifts++;
+            }
+        }
+
+        int[] rowStart = snapshot.getRowStart();
+        int[] rowIndex = snapshot.getRowIndex();
+        double[] rowValue = snapshot.getRowValue();
+        int passes = 0;
+        HeuristicResult.Status stopStatus = null;
+        boolean repaired = true;
+        while (repaired && passes < maxPasses) {
+            if (isCancelled()) {
+                stopStatus = HeuristicResult.Status.CANCELLED;
+                break;
+            }
+            passes++;
+            repaired = false;
+            for (int i = 0; i < activity.length; i++) {
+                if (rowViolation(i) <= FEASIBILITY_TOLERANCE)
+                    continue;
+                //Positive if the activity has to increase
+                double need = activity[i] < snapshot.getRowLB()[i] ?
+                        snapshot.getRowLB()[i] - activity[i] : snapshot.getRowUB()[i] - activity[i];
+
+                int bestColumn = -1;
+                double bestValue = 0;
+                double bestGain = FEASIBILITY_TOLERANCE;
+                for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+                    int j = rowIndex[k];
+                    double delta = need / rowValue[k];
+                    if (snapshot.isInteger(j))
+                        delta = delta > 0 ? Math.ceil(delta - FEASIBILITY_TOLERANCE) : Math.floor(delta + FEASIBILITY_TOLERANCE);
+                    double value = Math.max(colLB[j], Math.min(colUB[j], x[j] + delta));
+                    if (value == x[j])
+                        continue;
+                    double gain = violationDecrease(j, value - x[j]);
+                    if (gain > bestGain) {
+                        bestGain = gain;
+                        bestColumn = j;
+                        bestValue = value;
+                    }
+                }
+                if (bestColumn != -1) {
+                    shift(bestColumn, bestValue);
+                    shifts++;
+                    repaired = true;
+                }
+            }
+        }
+        return finish(stopStatus, passes, shifts, startTime);
+    }
+
+    /**
+     * @param j     Index of a variable
+     * @param delta A movement of the variable
+     * @return How much the total violation of the constraints of the variable decreases with the movement
+     */
+    private double violationDecrease(int j, double delta) {
+        int[] colStart = snapshot.getColStart();
+        int[] colIndex = snapshot.getColIndex();
+        double[] colValue = snapshot.getColValue();
+        double[] rowLB = snapshot.getRowLB();
+        double[] rowUB = snapshot.getRowUB();
+        double decrease = 0;
+        for (int k = colStart[j]; k < colStart[j + 1]; k++) {
+            int i = colIndex[k];
+            double moved = activity[i] + colValue[k] * delta;
+            double after = Math.max(0, Math.max(rowLB[i] - moved, moved - rowUB[i]));
+            decrease += rowViolation(i) - after;
+        }
+        return decrease;
+    }
+}
@@ -0,0 +1,62 @@
+package heuristics.ziround;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.management.InvalidAttributeValueException;
+
+/**
+ * Simple rounding: a fractional variable is rounded only in a direction in which no constraint can become
+ * violated, i.e. down if no constraint locks its decrease and up if no constraint locks its increase.
+ * <p>
+ * Never produces infeasible solutions, fails as soon as a fractional variable is locked in both directions
+ */
+public class SimpleRounding extends RoundingHeuristic {
+
+    /**
+     * @param snapshot         The model to round
+     * @param relaxedSolutions A solution of the relaxed model, one value for each variable of the snapshot
+     */
+    public SimpleRounding(@NotNull ModelSnapshot snapshot, @NotNull double[] relaxedSolutions) {
+        super(snapshot, relaxedSolutions);
+    }
+
+    @Override
+    public HeuristicResult applyHeuristic() throws InvalidAttributeValueException, NumVariable.ValueOutOfBoundsException {
+        long startTime = System.nanoTime();
+        initState();
+        int[] upLocks = snapshot.getUpLocks();
+        int[] downLocks = snapshot.getDownLocks();
+        double[] colLB = snapshot.getColLB();
+        double[] colUB = snapshot.getColUB();
+        double[] objective = snapshot.getObjective();
+
+        long shifts = 0;
+        HeuristicResult.Status stopStatus = null;
+        for (int j : integerColumns) {
+            //A single pass, the token is checked at every variable
+            if (isCancelled()) {
+                stopStatus = HeuristicResult.Status.CANCELLED;
+                break;
+            }
+            double value = x[j];
+            if (ZiRound.computeZI(value, integralityTolerance) == 0)
+                continue;
+            boolean canGoDown = downLocks[j] == 0 && Math.floor(value) >= colLB[j];
+            boolean canGoUp = upLocks[j] == 0 && Math.ceil(value) <= colUB[j];
+            if (canGoDown && canGoUp) {
+                //Both are safe, the objective decides
+                if (isBetter(objective[j] * Math.floor(value), objective[j] * Math.ceil(value)))
+                    shift(j, Math.floor(value));
+                else
+                    shift(j, Math.ceil(value));
+            } else if (canGoDown)
+                shift(j, Math.floor(value));
+            else if (canGoUp)
+                shift(j, Math.ceil(value));
+            else
+                continue;
+            shifts++;
+        }
+        return finish(stopStatus, 1, shifts, startTime);
+    }
+}
@@ -0,0 +1,256 @@
+package heuristics.ziround;
+
+import ilog.concert.IloException;
+import ilog.cplex.IloCplex;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * The k best distinct solutions found by any number of runs, e.g. the ones of a {@link MultiStartZiRound}.
+ * <p>
+ * Only the values of the INT variables are kept, as a {@code long[]}: two solutions are the same if they round
+ * the INT variables the same way, they're deduplicated through the hash of that array. The REAL variables are left
+ * to CPLEX when the pool is exported as MIP starts.
+ * <p>
+ * Thread safe: a solution that can't enter a full pool is rejected without taking the lock
+ */
+public class SolutionPool {
+    private final ModelSnapshot snapshot;
+    private final int[] integerColumns;
+    private final int capacity;
+    /**
+     * The worst solution is at the head, it's the one replaced when the pool is full
+     */
+    private final PriorityQueue<Entry> entries;
+    private final Map<Key, Entry> index = new HashMap<>();
+
+    private volatile boolean full;
+    private volatile double worstObjective;
+    private long offered;
+    private long accepted;
+    private long duplicates;
+
+    /**
+     * @param snapshot The model of the solutions
+     * @param capacity The number of solutions kept, the memory is {@code capacity} times the INT variables
+     */
+    public SolutionPool(@NotNull ModelSnapshot snapshot, int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("The capacity must be positive");
+        this.snapshot = snapshot;
+        this.integerColumns = snapshot.getIntegerColumns();
+        this.capacity = capacity;
+        boolean min = snapshot.getObjType() == Model.ObjType.MIN;
+        this.entries = new PriorityQueue<>(capacity, (a, b) -> min
+                ? Double.compare(b.objectiveValue, a.objectiveValue)
+                : Double.compare(a.objectiveValue, b.objectiveValue));
+    }
+
+    /**
+     * A solution with the same integer part as one in the pool replaces it only if its objective is better
+     *
+     * @param objectiveValue Objective value of a feasible solution
+     * @param values         A value for each variable of the snapshot, the INT ones integer, it's not retained
+     * @return {@code True} if the solution entered the pool
+     */
+    public boolean offer(double objectiveValue, @NotNull double[] values) {
+        if (full && !isBetter(objectiveValue, worstObjective)) {
+            synchronized (this) {
+                offered++;
+            }
+            return false;
+        }
+        long[] integerPart = new long[integerColumns.length];
+        for (int k = 0; k < integerColumns.length; k++)
+            integerPart[k] = Math.round(values[integerColumns[k]]);
+        Key key = new Key(integerPart);
+
+        synchronized (this) {
+            offered++;
+            Entry existing = index.get(key);
+            if (existing != null) {
+                duplicates++;
+                if (!isBetter(objectiveValue, existing.objectiveValue))
+                    return false;
+                //The key of the entry changes, it's removed and added again to keep the heap ordered
+                entries.remove(existing);
+            } else if (entries.size() == capacity) {
+                if (!isBetter(objectiveValue, entries.peek().objectiveValue))
+                    return false;
+                index.remove(entries.poll().key);
+            }
+            Entry entry = new Entry(objectiveValue, key);
+            entries.add(entry);
+            index.put(key, entry);
+            accepted++;
+            if (entries.size() == capacity) {
+                worstObjective = entries.peek().objectiveValue;
+                full = true;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Offers the solution of a run, if it's solved
+     *
+     * @param result The result of a run on the snapshot of the pool
+     * @return {@code True} if the solution entered the pool
+     */
+    public boolean offer(@NotNull HeuristicResult result) {
+        return result.isSolved() && offer(snapshot.getObjectiveValue(result.getValues()), result.getValues());
+    }
+
+    /**
+     * Adds every solution as a MIP start that fixes only the INT variables, the best first
+     *
+     * @param model  The model of the snapshot
+     * @param effort How much work CPLEX spends on each start
+     * @return The number of starts added
+     */
+    public int exportMIPStarts(@NotNull Model model, @NotNull IloCplex.MIPStartEffort effort) throws IloException {
+        double[][] solutions = getSolutions();
+        for (double[] values : solutions)
+            model.addMIPStart(values, true, effort);
+        return solutions.length;
+    }
+
+    /**
+     * @return The solutions from the best to the worst, the REAL variables are {@code NaN}
+     */
+    public synchronized double[][] getSolutions() {
+        Entry[] sorted = sortedEntries();
+        double[][] solutions = new double[sorted.length][];
+        for (int s = 0; s < sorted.length; s++) {
+            double[] values = new double[snapshot.countColumns()];
+            Arrays.fill(values, Double.NaN);
+            long[] integerPart = sorted[s].key.values;
+            for (int k = 0; k < integerColumns.length; k++)
+                values[integerColumns[k]] = integerPart[k];
+            solutions[s] = values;
+        }
+        return solutions;
+    }
+
+    /**
+     * @return The objective value of each solution, from the best to the worst
+     */
+    public synchronized double[] getObjectiveValues() {
+        Entry[] sorted = sortedEntries();
+        double[] values = new double[sorted.length];
+        for (int s = 0; s < sorted.length; s++)
+            values[s] = sorted[s].objectiveValue;
+        return values;
+    }
+
+    /**
+     * @return The average, over every pair of solutions, of the fraction of INT variables rounded differently: 0 if
+     * there are fewer than two solutions
+     */
+    public synchronized double getDiversity() {
+        Entry[] all = entries.toArray(new Entry[0]);
+        if (all.length < 2 || integerColumns.length == 0)
+            return 0;
+        long differences = 0;
+        for (int a = 0; a < all.length; a++) {
+            for (int b = a + 1; b < all.length; b++) {
+                long[] first = all[a].key.values;
+                long[] second = all[b].key.values;
+                for (int k = 0; k < first.length; k++)
+                    if (first[k] != second[k])
+                        differences++;
+            }
+        }
+        long pairs = (long) all.length * (all.length - 1) / 2;
+        return (double) differences / pairs / integerColumns.length;
+    }
+
+    /**
+     * @return The best objective value, the worst possible value if the pool is empty
+     */
+    public synchronized double getBestObjective() {
+        double best = worstPossible();
+        for (Entry entry : entries)
+            if (isBetter(entry.objectiveValue, best))
+                best = entry.objectiveValue;
+        return best;
+    }
+
+    /**
+     * @return The worst objective value in the pool, the worst possible value if the pool is empty
+     */
+    public synchronized double getWorstObjective() {
+        return entries.isEmpty() ? worstPossible() : entries.peek().objectiveValue;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized long getOffered() {
+        return offered;
+    }
+
+    public synchronized long getAccepted() {
+        return accepted;
+    }
+
+    public synchronized long getDuplicates() {
+        return duplicates;
+    }
+
+    private Entry[] sortedEntries() {
+        Entry[] sorted = entries.toArray(new Entry[0]);
+        Arrays.sort(sorted, entries.comparator().reversed());
+        return sorted;
+    }
+
+    private double worstPossible() {
+        return snapshot.getObjType() == Model.ObjType.MIN ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+    }
+
+    private boolean isBetter(double a, double b) {
+        return snapshot.getObjType() == Model.ObjType.MIN ? a < b : a > b;
+    }
+
+    private static class Entry {
+        private final double objectiveValue;
+        private final Key key;
+
+        private Entry(double objectiveValue, Key key) {
+            this.objectiveValue = objectiveValue;
+            this.key = key;
+        }
+    }
+
+    /**
+     * The integer part of a solution, the hash is computed once
+     */
+    private static class Key {
+        private final long[] values;
+        private final int hash;
+
+        private Key(long[] values) {
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && hash == ((Key) o).hash && Arrays.equals(values, ((Key) o).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package heuristics.ziround;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes solutions in the CPLEX XML formats: {@code .mst} MIP starts, read back with
+ * {@link ilog.cplex.IloCplex#readMIPStarts(String)}, and {@code .sol} solution files.
+ * <p>
+ * The files are streamed through a buffered writer on a {@link FileChannel}, nothing is built in memory
+ */
+public class SolutionWriter {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String VERSION = "1.2";
+
+    private final ModelSnapshot snapshot;
+    private final String[] names;
+    private String problemName = "";
+
+    /**
+     * @param snapshot The model the solutions belong to
+     * @param names    Name of each variable, as in the model file. {@code null} to use {@code x<index>}
+     */
+    public SolutionWriter(@NotNull ModelSnapshot snapshot, String[] names) {
+        this.snapshot = snapshot;
+        this.names = names;
+    }
+
+    /**
+     * @param problemName Written in the header of the files
+     */
+    public void setProblemName(@NotNull String problemName) {
+        this.problemName = problemName;
+    }
+
+    /**
+     * @param path        Destination file, replaced if it exists
+     * @param values      A value for each variable
+     * @param integerOnly {@code true} for a partial start with the INT variables that are integer only, CPLEX
+     *                    completes it by itself
+     * @param effort      The MIPStartEffortLevel of the start, 0 lets CPLEX decide
+     */
+    public void writeMst(@NotNull Path path, @NotNull double[] values, boolean integerOnly, int effort) throws IOException {
+        try (Writer out = open(path)) {
+            out.write("<?xml version = \"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+            out.write("<CPLEXSolutions version=\"" + VERSION + "\">\n");
+            out.write(" <CPLEXSolution version=\"" + VERSION + "\">\n");
+            out.write("  <header\n    problemName=\"" + escape(problemName) + "\"\n    solutionName=\"ziround\"\n"
+                    + "    solutionIndex=\"0\"\n    MIPStartEffortLevel=\"" + effort + "\"\n    writeLevel=\""
+                    + (integerOnly ? 2 : 1) + "\"/>\n");
+            writeVariables(out, values, integerOnly);
+            out.write(" </CPLEXSolution>\n");
+            out.write("</CPLEXSolutions>\n");
+        }
+    }
+
+    /**
+     * @param path   Destination file, replaced if it exists
+     * @param values A value for each variable
+     */
+    public void writeSol(@NotNull Path path, @NotNull double[] values) throws IOException {
+        try (Writer out = open(path)) {
+            out.write("<?xml version = \"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+            out.write("<CPLEXSolution version=\"" + VERSION + "\">\n");
+            out.write(" <header\n   problemName=\"" + escape(problemName) + "\"\n   solutionName=\"ziround\"\n"
+                    + "   objectiveValue=\"" + format(snapshot.getObjectiveValue(values)) + "\"\n"
+                    + "   solutionTypeValue=\"3\"\n   solutionTypeString=\"primal\"/>\n");
+            out.write(" <linearConstraints>\n");
+            double[] activity = new double[snapshot.countRows()];
+            snapshot.computeRowActivities(values, activity);
+            for (int i = 0; i < activity.length; i++) {
+                //The slack as CPLEX writes it: distance from the finite bound
+                double bound = snapshot.getRowUB()[i] < Double.POSITIVE_INFINITY ? snapshot.getRowUB()[i] : snapshot.getRowLB()[i];
+                out.write("  <constraint index=\"" + i + "\" slack=\"" + format(bound - activity[i]) + "\"/>\n");
+            }
+            out.write(" </linearConstraints>\n");
+            writeVariables(out, values, false);
+            out.write("</CPLEXSolution>\n");
+        }
+    }
+
+    private void writeVariables(Writer out, double[] values, boolean integerOnly) throws IOException {
+        out.write("  <variables>\n");
+        for (int j = 0; j < values.length; j++) {
+            if (integerOnly && (!snapshot.isInteger(j) || ZiRound.computeZI(values[j]) != 0))
+                continue;
+            double value = snapshot.isInteger(j) && ZiRound.computeZI(values[j]) == 0 ? Math.rint(values[j]) : values[j];
+            out.write("   <variable name=\"" + escape(name(j)) + "\" index=\"" + j + "\" value=\"" + format(value) + "\"/>\n");
+        }
+        out.write("  </variables>\n");
+    }
+
+    private static Writer open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        return new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    private String name(int j) {
+        return names != null && names[j] != null ? names[j] : "x" + j;
+    }
+
+    /**
+     * Integers are written without decimals, the other values with all the digits needed to read them back exactly
+     */
+    private static String format(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15)
+            return Long.toString((long) value);
+        return Double.toString(value);
+    }
+
+    private static String escape(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (char c : text.toCharArray()) {
+            switch (c) {
+                case '&' -> escaped.append("&amp;");
+                case '<' -> escaped.append("&lt;");
+                case '>' -> escaped.append("&gt;");
+                case '"' -> escaped.append("&quot;");
+                case '\'' -> escaped.append("&apos;");
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,137 @@
+package heuristics.ziround;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Tunes the threshold param of {@link ZiRound} on a single instance: one run for each threshold, executed in
+ * parallel on the same {@link ModelSnapshot} and relaxed solution.
+ * <p>
+ * The runs are ranked by feasibility, then objective value, then run time
+ */
+public class ThresholdSweep {
+    private final ModelSnapshot snapshot;
+    private final double[] relaxedSolutions;
+    private final Consumer<ZiRound> configurator;
+
+    /**
+     * @param snapshot         The model shared by all the runs
+     * @param relaxedSolutions A solution of the relaxed model
+     * @param configurator     Applies the settings common to every run (limits, extensions...), can be {@code null}
+     */
+    public ThresholdSweep(@NotNull ModelSnapshot snapshot, @NotNull double[] relaxedSolutions, Consumer<ZiRound> configurator) {
+        this.snapshot = snapshot;
+        this.relaxedSolutions = relaxedSolutions;
+        this.configurator = configurator;
+    }
+
+    /**
+     * @param from  Smallest threshold, > 0
+     * @param to    Largest threshold
+     * @param steps Number of thresholds, >= 2
+     * @return {@code steps} thresholds evenly spaced on a logarithmic scale between {@code from} and {@code to}
+     */
+    public static double[] logRange(double from, double to, int steps) {
+        double[] thresholds = new double[steps];
+        double ratio = Math.pow(to / from, 1.0 / (steps - 1));
+        for (int k = 0; k < steps; k++)
+            thresholds[k] = from * Math.pow(ratio, k);
+        thresholds[steps - 1] = to;
+        return thresholds;
+    }
+
+    /**
+     * @param thresholds The thresholds to evaluate
+     * @param threads    Number of runs executed at the same time
+     * @return One entry for each threshold, the best first
+     * @throws InterruptedException If the calling thread is interrupted while waiting
+     */
+    public List<Entry> run(@NotNull double[] thresholds, int threads) throws InterruptedException {
+        FeasibilityVerifier verifier = new FeasibilityVerifier(snapshot);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Entry>> futures = new ArrayList<>();
+        for (double threshold : thresholds) {
+            futures.add(executor.submit(() -> {
+                ZiRound ziRound = new ZiRound(snapshot, relaxedSolutions, threshold);
+                if (configurator != null)
+                    configurator.accept(ziRound);
+                HeuristicResult result = ziRound.applyHeuristic();
+                return new Entry(threshold, result, verifier.verify(result.getValues()));
+            }));
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        try {
+            for (Future<Entry> future : futures) {
+                try {
+                    entries.add(future.get());
+                } catch (ExecutionException e) {
+                    e.printStackTrace();
+                    //The other thresholds are still valid
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        entries.sort(this::compare);
+        return entries;
+    }
+
+    /**
+     * @param thresholds The thresholds to evaluate
+     * @param threads    Number of runs executed at the same time
+     * @return The best threshold for this instance, {@code null} if every run failed
+     * @throws InterruptedException If the calling thread is interrupted while waiting
+     */
+    public Entry best(@NotNull double[] thresholds, int threads) throws InterruptedException {
+        List<Entry> entries = run(thresholds, threads);
+        return entries.isEmpty() ? null : entries.get(0);
+    }
+
+    /**
+     * Feasible first, then the better objective, then the faster run
+     */
+    private int compare(Entry a, Entry b) {
+        FeasibilityReport ra = a.getReport();
+        FeasibilityReport rb = b.getReport();
+        if (ra.isFeasible() != rb.isFeasible())
+            return ra.isFeasible() ? -1 : 1;
+        if (!ra.isFeasible() && a.getResult().getFractionalCount() != b.getResult().getFractionalCount())
+            return Integer.compare(a.getResult().getFractionalCount(), b.getResult().getFractionalCount());
+        int objective = Double.compare(ra.getObjectiveValue(), rb.getObjectiveValue());
+        if (objective != 0)
+            return snapshot.getObjType() == Model.ObjType.MIN ? objective : -objective;
+        return Long.compare(a.getResult().getElapsedNanos(), b.getResult().getElapsedNanos());
+    }
+
+    /**
+     * The run of a single threshold
+     */
+    public static class Entry {
+        private final double threshold;
+        private final HeuristicResult result;
+        private final FeasibilityReport report;
+
+        public Entry(double threshold, HeuristicResult result, FeasibilityReport report) {
+            this.threshold = threshold;
+            this.result = result;
+            this.report = report;
+        }
+
+        public double getThreshold() {
+            return threshold;
+        }
+
+        public HeuristicResult getResult() {
+            return result;
+        }
+
+        public FeasibilityReport getReport() {
+            return report;
+        }
+    }
+}
@@ -1,28 +1,45 @@
 package heuristics.ziround;
 
+import heuristics.interfaces.ListerListener;
 import ilog.concert.*;
 import ilog.cplex.IloCplex;
 
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 /**
- * VariableLister provides a static method to scan a CPLEX model and extract
- * a list of variables it contains.
+ * VariableLister scans a CPLEX model once and keeps an inventory of the objects it contains: the matrix, the
+ * objective, the ranges, the variables and the SOS1/SOS2 sets that are not part of the matrix.
+ * <p>
+ * The scan is silent, a {@link RateLimitedLogger} can be set to trace the scanned objects.
  * <p>
  * Usage:
- * IloNumVar[] vars = VariableLister.parse(model);
+ * VariableLister lister = new VariableLister();
+ * lister.parse(model);
  */
 public class VariableLister {
     private IloLPMatrix matrix;
     private IloObjective obj;
+    private IloRange[] ranges = new IloRange[0];
+    private IloNumVar[] variables = new IloNumVar[0];
+    private IloSOS1[] sos1 = new IloSOS1[0];
+    private IloSOS2[] sos2 = new IloSOS2[0];
+    private RateLimitedLogger logger;
 
     /**
-     * A function to parse CPLEX models (instances of IloCplex) and return
-     * a vector of all variables contained in the model. The vector is
-     * sorted alphabetically by the names of the variables. If the variable
-     * has no name, one is assigned to it (prefix + counter). The prefix is
-     * a static field of the class, and can be changed at will.
+     * @param logger Receives a line for each scanned object, {@code null} (the default) for a silent scan
+     */
+    public void setLogger(RateLimitedLogger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * A function to parse CPLEX models (instances of IloCplex) and collect the objects contained in the model, in a
+     * single iteration. The arrays are sized on the counts CPLEX reports and trimmed at the end.
      *
      * @param model the model to parse
      * @throws IloException            if CPLEX has trouble iterating over the model
@@ -30,39 +47,83 @@ public class VariableLister {
      */
     public void parse(IloCplex model)
             throws IloException, VariableListerException {
-        long counter = 0;  // used to create variable names
+        IloRange[] ranges = new IloRange[Math.max(model.getNrows(), 1)];
+        IloNumVar[] variables = new IloNumVar[Math.max(model.getNcols(), 1)];
+        IloSOS1[] sos1 = new IloSOS1[Math.max(model.getNSOS1(), 1)];
+        IloSOS2[] sos2 = new IloSOS2[Math.max(model.getNSOS2(), 1)];
+        int nRanges = 0;
+        int nVariables = 0;
+        int nSos1 = 0;
+        int nSos2 = 0;
+
         Iterator it = model.iterator();
-        IloLinearNumExpr lExpr;
-        IloQuadNumExpr qExpr;
-        IloLinearNumExprIterator lit;
-        IloQuadNumExprIterator qit;
         while (it.hasNext()) {
             IloAddable thing = (IloAddable) it.next();
-            System.out.print("Scanning " + thing.getName() + " (type ");
-            if (thing instanceof IloRange || thing instanceof IloObjective) {
-                Object o;
-                if (thing instanceof IloRange) {
-                    System.out.println("IloRange)");
-                } else {
-                    System.out.println("IloObjective)");
-                    obj = (IloObjective) thing;
-                }
+            String type;
+            if (thing instanceof IloRange) {
+                type = "IloRange";
+                ranges = grow(ranges, nRanges);
+                ranges[nRanges++] = (IloRange) thing;
+            } else if (thing instanceof IloObjective) {
+                type = "IloObjective";
+                obj = (IloObjective) thing;
             } else if (thing instanceof IloSOS1) {
-                System.out.println("IloSOS1)");
+                type = "IloSOS1";
+                sos1 = grow(sos1, nSos1);
+                sos1[nSos1++] = (IloSOS1) thing;
             } else if (thing instanceof IloSOS2) {
-                System.out.println("IloSOS2)");
+                type = "IloSOS2";
+                sos2 = grow(sos2, nSos2);
+                sos2[nSos2++] = (IloSOS2) thing;
             } else if (thing instanceof IloLPMatrix) {
-                System.out.println("IloLPMatrix)");
+                type = "IloLPMatrix";
                 matrix = (IloLPMatrix) thing;
             } else if (thing instanceof IloNumVar) {
-                System.out.println("IloNumVar)");
+                type = "IloNumVar";
+                variables = grow(variables, nVariables);
+                variables[nVariables++] = (IloNumVar) thing;
             } else {
                 throw new VariableListerException("An object of unrecognized type was "
                         + "encountered while parsing the "
                         + "model.");
             }
+            if (logger != null)
+                logger.log("Scanning " + thing.getName() + " (type " + type + ")");
         }
-        return;
+        if (logger != null)
+            logger.flush();
+        this.ranges = Arrays.copyOf(ranges, nRanges);
+        this.variables = Arrays.copyOf(variables, nVariables);
+        this.sos1 = Arrays.copyOf(sos1, nSos1);
+        this.sos2 = Arrays.copyOf(sos2, nSos2);
+    }
+
+    /**
+     * Parses the model on the executor and delivers the inventory to the listener
+     *
+     * @param model    the model to parse, it must not be changed until the scan is complete
+     * @param listener receives this lister once the scan is complete, can be {@code null}
+     * @param executor runs the scan
+     * @return completed with this lister, or exceptionally with the exception of {@link #parse(IloCplex)}
+     */
+    public CompletableFuture<VariableLister> parseAsync(IloCplex model, ListerListener listener, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                parse(model);
+            } catch (IloException | VariableListerException e) {
+                throw new CompletionException(e);
+            }
+            if (listener != null)
+                listener.onModelListed(this);
+            return this;
+        }, executor);
+    }
+
+    /**
+     * @return the array itself if there's room for one more element, otherwise a copy of double the size
+     */
+    private static <T> T[] grow(T[] array, int size) {
+        return size < array.length ? array : Arrays.copyOf(array, array.length * 2);
     }
 
     public IloLPMatrix getMatrix() {
@@ -73,6 +134,28 @@ public class VariableLister {
         return obj;
     }
 
+    /**
+     * @return the ranges that are not part of the matrix
+     */
+    public IloRange[] getRanges() {
+        return ranges;
+    }
+
+    /**
+     * @return the variables that are not part of the matrix
+     */
+    public IloNumVar[] getVariables() {
+        return variables;
+    }
+
+    public IloSOS1[] getSOS1() {
+        return sos1;
+    }
+
+    public IloSOS2[] getSOS2() {
+        return sos2;
+    }
+
     /**
      * Custom exception class to deal with unknown model object types.
      */
@@ -0,0 +1,105 @@
+package heuristics.ziround;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD implementation of {@link ZiKernels} based on the incubating Vector API
+ * <p>
+ * Requires {@code --add-modules jdk.incubator.vector}, it's only instantiated by reflection from
+ * {@link ZiKernels#getInstance()} so that JVMs without the module never link this class
+ */
+class VectorZiKernels extends ZiKernels {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    /**
+     * Every double with an absolute value of at least 2^52 is an integer
+     */
+    private static final double INTEGER_MAGNITUDE = 0x1p52;
+
+    /**
+     * @param v Lanes of values
+     * @return The fractional part {@code v - floor(v)} of each lane, 0 for the lanes that are certainly integer
+     */
+    private static DoubleVector fraction(DoubleVector v) {
+        //Truncation rounds toward zero: one step down gives the floor of the negative non integer values
+        DoubleVector truncated = (DoubleVector) v.convert(VectorOperators.D2L, 0).convert(VectorOperators.L2D, 0);
+        DoubleVector floor = truncated.sub(1.0, truncated.compare(VectorOperators.GT, v));
+        return v.sub(floor).blend(0.0, v.abs().compare(VectorOperators.GE, INTEGER_MAGNITUDE));
+    }
+
+    @Override
+    public void zis(double[] values, int[] index, double[] out, double tolerance) {
+        int k = 0;
+        int bound = SPECIES.loopBound(index.length);
+        for (; k < bound; k += SPECIES.length()) {
+            DoubleVector fraction = fraction(DoubleVector.fromArray(SPECIES, values, 0, index, k));
+            DoubleVector zi = fraction.min(fraction.neg().add(1.0));
+            zi.blend(0.0, zi.compare(VectorOperators.LE, tolerance)).intoArray(out, k);
+        }
+        for (; k < index.length; k++)
+            out[k] = ZiRound.computeZI(values[index[k]], tolerance);
+    }
+
+    @Override
+    public int countFractional(double[] values, int[] index, double tolerance) {
+        int count = 0;
+        int k = 0;
+        int bound = SPECIES.loopBound(index.length);
+        for (; k < bound; k += SPECIES.length()) {
+            DoubleVector fraction = fraction(DoubleVector.fromArray(SPECIES, values, 0, index, k));
+            VectorMask<Double> fractional = fraction.min(fraction.neg().add(1.0)).compare(VectorOperators.GT, tolerance);
+            count += fractional.trueCount();
+        }
+        for (; k < index.length; k++)
+            if (ZiRound.computeZI(values[index[k]], tolerance) != 0)
+                count++;
+        return count;
+    }
+
+    @Override
+    public double sum(double[] values) {
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int k = 0;
+        int bound = SPECIES.loopBound(values.length);
+        for (; k < bound; k += SPECIES.length())
+            acc = acc.add(DoubleVector.fromArray(SPECIES, values, k));
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; k < values.length; k++)
+            sum += values[k];
+        return sum;
+    }
+
+    @Override
+    public double dot(double[] a, double[] b) {
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int k = 0;
+        int bound = SPECIES.loopBound(a.length);
+        for (; k < bound; k += SPECIES.length())
+            acc = DoubleVector.fromArray(SPECIES, a, k).fma(DoubleVector.fromArray(SPECIES, b, k), acc);
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; k < a.length; k++)
+            sum += a[k] * b[k];
+        return sum;
+    }
+
+    @Override
+    public double sparseDot(int[] index, double[] value, int from, int to, double[] x) {
+        int k = from;
+        double sum = 0;
+        //Short rows don't fill a single vector, the gather would only add overhead
+        if (to - from >= SPECIES.length()) {
+            DoubleVector acc = DoubleVector.zero(SPECIES);
+            int bound = from + SPECIES.loopBound(to - from);
+            for (; k < bound; k += SPECIES.length()) {
+                DoubleVector gathered = DoubleVector.fromArray(SPECIES, x, 0, index, k);
+                acc = DoubleVector.fromArray(SPECIES, value, k).fma(gathered, acc);
+            }
+            sum = acc.reduceLanes(VectorOperators.ADD);
+        }
+        for (; k < to; k++)
+            sum += value[k] * x[index[k]];
+        return sum;
+    }
+}
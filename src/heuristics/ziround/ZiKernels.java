@@ -0,0 +1,77 @@
+package heuristics.ziround;
+
+/**
+ * Numeric kernels used on the hot paths of the heuristic: batch ZI computation, fractional counting and row
+ * activities.
+ * <p>
+ * When the JVM provides the {@code jdk.incubator.vector} module the SIMD implementation {@link VectorZiKernels} is
+ * used, otherwise {@link ScalarZiKernels}. The scalar implementation can be forced with the system property
+ * {@code ziround.kernels=scalar}
+ */
+public abstract class ZiKernels {
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_KERNELS = "heuristics.ziround.VectorZiKernels";
+    private static final String KERNELS_PROPERTY = "ziround.kernels";
+
+    /**
+     * @return The fastest implementation available on this JVM
+     */
+    public static ZiKernels getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * @param values    Values of the variables
+     * @param index     Indexes of the values to read
+     * @param out       Receives {@code ZI(values[index[k]])} at position k
+     * @param tolerance ZIs within the integrality tolerance are 0
+     */
+    public abstract void zis(double[] values, int[] index, double[] out, double tolerance);
+
+    /**
+     * @param values    Values of the variables
+     * @param index     Indexes of the values to read
+     * @param tolerance Integrality tolerance
+     * @return The number of {@code values[index[k]]} that are not integer
+     */
+    public abstract int countFractional(double[] values, int[] index, double tolerance);
+
+    /**
+     * @param values Array to reduce
+     * @return The sum of all the elements
+     */
+    public abstract double sum(double[] values);
+
+    /**
+     * @param a A dense vector
+     * @param b A dense vector, at least as long as {@code a}
+     * @return The scalar product of the two vectors
+     */
+    public abstract double dot(double[] a, double[] b);
+
+    /**
+     * @param index Indexes of the non zeros
+     * @param value Values of the non zeros
+     * @param from  First non zero (inclusive)
+     * @param to    Last non zero (exclusive)
+     * @param x     Dense vector
+     * @return {@code sum(value[k] * x[index[k]])} for k in [from, to)
+     */
+    public abstract double sparseDot(int[] index, double[] value, int from, int to, double[] x);
+
+    private static class Holder {
+        private static final ZiKernels INSTANCE = load();
+
+        private static ZiKernels load() {
+            if (!"scalar".equals(System.getProperty(KERNELS_PROPERTY))
+                    && ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+                try {
+                    return (ZiKernels) Class.forName(VECTOR_KERNELS).getDeclaredConstructor().newInstance();
+                } catch (ReflectiveOperationException | LinkageError e) {
+                    //The module is there but can't be used, the scalar kernels are always correct
+                }
+            }
+            return new ScalarZiKernels();
+        }
+    }
+}
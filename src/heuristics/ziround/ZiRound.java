@@ -1,12 +1,12 @@
 package heuristics.ziround;
 
-//import heuristics.interfaces.Heuristic;
-
+import heuristics.interfaces.Heuristic;
 import heuristics.interfaces.HeuristicListener;
 import ilog.concert.IloException;
 import org.jetbrains.annotations.NotNull;
 
 import javax.management.InvalidAttributeValueException;
+import java.util.Arrays;
 
 /**
  * This class uses the library {@link ilog.cplex}
@@ -14,13 +14,65 @@ import javax.management.InvalidAttributeValueException;
  *
  * @author Turcato
  */
-public class ZiRound // implements Heuristic
-{
+public class ZiRound implements Heuristic {
     private Model model;
+    private ModelSnapshot snapshot;
     private NumVariable[] solutions;
     private int[] integerSolutions;
     private double threshold;
     private HeuristicListener solutionListener;
+    private ZiRoundLimits limits = ZiRoundLimits.UNLIMITED;
+    private CancellationToken cancellationToken;
+    private Incumbent incumbent;
+    private SolutionPool solutionPool;
+    private HeuristicResult result;
+
+    /**
+     * Working solution and activity of each constraint, kept in sync by {@link #shift(int, double)}
+     */
+    private double[] x;
+    private double[] activity;
+    private double[] relaxedSolutions;
+    private boolean equalityExtension;
+    private boolean propagation;
+    private Ordering ordering = Ordering.INDEX;
+    private boolean lockRounding;
+    private boolean presolve;
+    private boolean binaryFastPath;
+    private double integralityTolerance = NumVariable.getIntegralityTolerance();
+    /**
+     * Objective value of the variables removed by the presolve
+     */
+    private double objectiveOffset;
+    /**
+     * Bounds used by the shifts: the bounds of the snapshot, or the ones tightened by the {@link BoundPropagator}
+     */
+    private double[] colLB;
+    private double[] colUB;
+    /**
+     * State of the current run
+     */
+    private BoundPropagator propagator;
+    /**
+     * The variables to round that are still fractional, or that haven't been marked as rounded yet
+     */
+    private IntIndexSet fractional;
+    /**
+     * {@code false} for the members of a SOS set that must not move away from zero, {@code null} without SOS sets
+     */
+    private boolean[] sosNonZero;
+    /**
+     * The INT variables with bounds [0, 1], {@code null} if the binary fast path is disabled
+     */
+    private IntIndexSet binaries;
+    private int sweeps;
+    private long shifts;
+
+    /**
+     * Largest change accepted on an = constraint by a paired shift
+     */
+    private final static double PAIR_TOLERANCE = 1e-9;
+    private final static String RELAXATION_ERROR = "The relaxed model has no solution";
 
     /**
      * Constructor that initializes an instance of {@link #ZiRound}
@@ -29,7 +81,8 @@ public class ZiRound // implements Heuristic
      * Note: the given model will receive changes in any case
      *
      * @param model     A relaxed solved Model
-     * @param threshold threshold param for the ZiRound algorithm
+     * @param threshold threshold param for the ZiRound algorithm: a shift is accepted only if it decreases ZI by
+     *                  more than the threshold, values with ZI within the threshold are snapped to the integer
      */
     public ZiRound(@NotNull Model model, double threshold) throws IloException {
         this.model = model;
@@ -37,123 +90,840 @@ public class ZiRound // implements Heuristic
     }
 
     /**
-     * @param integerSolutions The indexes of the variables to round to their integer value
+     * Constructor that runs the algorithm on a snapshot starting from an already known relaxed solution, no solver
+     * is involved
+     * <p>
+     * The snapshot and the solution are only read, so they can be shared by concurrent runs
+     *
+     * @param snapshot         The model to round
+     * @param relaxedSolutions A solution of the relaxed model, one value for each variable of the snapshot
+     * @param threshold        threshold param for the ZiRound algorithm, see {@link #ZiRound(Model, double)}
+     */
+    public ZiRound(@NotNull ModelSnapshot snapshot, @NotNull double[] relaxedSolutions, double threshold) {
+        this.snapshot = snapshot;
+        this.relaxedSolutions = relaxedSolutions;
+        this.threshold = threshold;
+    }
+
+    /**
+     * @return The threshold param of the algorithm
+     */
+    public double getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * @param integerSolutions The indexes of the variables to round to their integer value, in the order the sweeps
+     *                         visit them, if never set all the INT variables of the model are rounded
      */
     public void setIntegerSolutions(int[] integerSolutions) {
         this.integerSolutions = integerSolutions;
     }
 
     /**
-     * The algorithm is designed to work on models that have only <, <=, = constraints
+     * Enables the extended ZI Round: a fractional variable that can't move because it appears in = constraints is
+     * shifted together with a REAL variable of the same constraints, so that they stay satisfied
+     *
+     * @param equalityExtension {@code true} to enable the paired shifts, disabled by default
+     */
+    public void setEqualityExtension(boolean equalityExtension) {
+        this.equalityExtension = equalityExtension;
+    }
+
+    /**
+     * Enables bound propagation: every time a variable becomes integral it is fixed, the implied bounds of the other
+     * variables are tightened and the shifts are kept within them, so an impossible rounding stops the run with
+     * {@link HeuristicResult.Status#INFEASIBLE} instead of being discovered sweeps later
+     *
+     * @param propagation {@code true} to enable the propagation, disabled by default
+     */
+    public void setPropagation(boolean propagation) {
+        this.propagation = propagation;
+    }
+
+    /**
+     * Enables a first pass that rounds the variables that are free to move in a direction (no up or no down locks,
+     * see {@link ModelSnapshot#getUpLocks()}) before any slack is computed, the ZI logic handles the rest
+     *
+     * @param lockRounding {@code true} to enable the first pass, disabled by default
+     */
+    public void setLockRounding(boolean lockRounding) {
+        this.lockRounding = lockRounding;
+    }
+
+    /**
+     * Enables the binary fast path: a fractional INT variable with bounds [0, 1] can only go to 0 or to 1, so a
+     * single pass over its column decides both moves, and a direction without locks needs no pass at all. The
+     * general logic handles the variables that can reach neither 0 nor 1
+     *
+     * @param binaryFastPath {@code true} to enable the fast path, disabled by default
+     */
+    public void setBinaryFastPath(boolean binaryFastPath) {
+        this.binaryFastPath = binaryFastPath;
+    }
+
+    /**
+     * @param ordering The order in which the INT variables are visited, {@link Ordering#INDEX} by default
+     */
+    public void setOrdering(@NotNull Ordering ordering) {
+        this.ordering = ordering;
+    }
+
+    /**
+     * Enables the {@link Presolve}: the run works on the reduced snapshot, the solutions are reported in the index
+     * space of the original model
+     * <p>
+     * Models with SOS sets aren't presolved
+     *
+     * @param presolve {@code true} to enable the presolve, disabled by default
+     */
+    public void setPresolve(boolean presolve) {
+        this.presolve = presolve;
+    }
+
+    /**
+     * The tolerance is used by every check of this run (ZI, presolve, propagation, SOS), the other runs keep their
+     * own
+     *
+     * @param integralityTolerance Distance from an integer below which a value is considered integer, 0 for exact
+     *                             checks, {@link NumVariable#getIntegralityTolerance()} by default
+     * @throws IllegalArgumentException If the tolerance isn't in [0, {@link NumVariable#MAX_INTEGRALITY_TOLERANCE}]
+     */
+    public void setIntegralityTolerance(double integralityTolerance) {
+        this.integralityTolerance = NumVariable.checkIntegralityTolerance(integralityTolerance);
+    }
+
+    public double getIntegralityTolerance() {
+        return integralityTolerance;
+    }
+
+    /**
+     * Shares the best solution with other runs: a feasible rounding is offered to the incumbent, and the run stops
+     * as soon as rounding the remaining variables can't give a better objective value than the incumbent's
+     * <p>
+     * The early stop is disabled together with {@link #setEqualityExtension(boolean)}, since paired shifts move
+     * REAL variables too and the bound wouldn't be valid anymore
+     *
+     * @param incumbent The incumbent shared with the other runs, {@code null} to run alone
+     */
+    public void setIncumbent(Incumbent incumbent) {
+        this.incumbent = incumbent;
+    }
+
+    /**
+     * @param solutionPool Receives every feasible rounding, it can be shared with other runs on the same snapshot,
+     *                     {@code null} to keep only the last solution
+     */
+    public void setSolutionPool(SolutionPool solutionPool) {
+        this.solutionPool = solutionPool;
+    }
+
+    /**
+     * @param limits Time, sweep and shift budgets for the next runs, {@link ZiRoundLimits#UNLIMITED} by default
+     */
+    public void setLimits(@NotNull ZiRoundLimits limits) {
+        this.limits = limits;
+    }
+
+    /**
+     * @param cancellationToken A token polled between sweeps, {@code null} to disable external cancellation
+     */
+    @Override
+    public void setCancellationToken(CancellationToken cancellationToken) {
+        this.cancellationToken = cancellationToken;
+    }
+
+    /**
+     * The algorithm works on the ranges of the constraints, so <=, >= and = constraints are all supported without
+     * changing the model
      * <p>
      * call {@link #setIntegerSolutions(int[])} before of this method to select solutions to round to integer
      * <p>
-     * TODO: solve <= constraints
+     * The run stops early if one of the {@link ZiRoundLimits} is exhausted or the {@link CancellationToken} is
+     * cancelled, in that case the partial state reached so far is kept in {@link #Solutions()}
+     *
+     * @return The outcome of the run, also available through {@link #getResult()}
      */
-    public void applyHeuristic() throws NumVariable.ValueOutOfBoundsException, InvalidAttributeValueException, IloException {
-        //To get <, <=, = constraints
-        model.changeConstraintsToLessThan();
-        //The model is solved, we retrieve the solutions
-        double[] numSolutions = model.getRelaxedSolutions();
-        solutions = model.getVariables();
-        for (int i = 0; i < solutions.length; i++) {
-            solutions[i].setValue(numSolutions[i]);
+    @Override
+    public HeuristicResult applyHeuristic() throws NumVariable.ValueOutOfBoundsException, InvalidAttributeValueException, IloException {
+        long startTime = System.nanoTime();
+        if (model != null) {
+            //The model is solved, we retrieve the solutions
+            relaxedSolutions = model.getRelaxedSolutions();
+            if (relaxedSolutions == null)
+                throw new IloException(RELAXATION_ERROR);
+            snapshot = model.snapshot();
         }
+        ModelSnapshot original = snapshot;
+        int[] originalIntegers = integerSolutions;
+        double[] start = relaxedSolutions;
+        PostsolveMap postsolve = null;
+        HeuristicResult.Status status = null;
+        objectiveOffset = 0;
+        if (presolve && snapshot.countSOS() == 0) {
+            postsolve = new Presolve(snapshot, integralityTolerance).apply();
+            if (postsolve.isInfeasible()) {
+                status = HeuristicResult.Status.INFEASIBLE;
+                postsolve = null;
+            } else {
+                snapshot = postsolve.getReducedSnapshot();
+                start = postsolve.reduce(relaxedSolutions);
+                objectiveOffset = postsolve.getObjectiveOffset();
+                if (integerSolutions != null)
+                    integerSolutions = postsolve.reduceIndexes(integerSolutions);
+            }
+        }
+        initState(start);
+        if (integerSolutions == null)
+            integerSolutions = snapshot.getIntegerColumns();
+
+        propagator = null;
+        colLB = snapshot.getColLB();
+        colUB = snapshot.getColUB();
+        if (propagation) {
+            propagator = new BoundPropagator(snapshot, integralityTolerance);
+            colLB = propagator.getLB();
+            colUB = propagator.getUB();
+        }
+        for (int j : integerSolutions)
+            snap(j);
+        fractional = new IntIndexSet(snapshot.countColumns(), integerSolutions);
+        sosNonZero = snapshot.countSOS() == 0 ? null : chooseSOSNonZeros();
+        binaries = binaryFastPath ? new IntIndexSet(snapshot.countColumns(), snapshot.getBinaryColumns()) : null;
+        sweeps = 0;
+        shifts = 0;
+        if (status == null && lockRounding)
+            status = roundLockFree();
+        if (status == null && propagator != null && !propagateRounded(propagator))
+            status = HeuristicResult.Status.INFEASIBLE;
+        if (propagator == null) {
+            //Only the paired shifts move a variable that is already integral, and they only move REAL variables
+            for (int j : integerSolutions)
+                if (snapshot.isInteger(j) && zi(x[j]) == 0)
+                    fractional.remove(j);
+        }
+        if (status == null)
+            status = ordering == Ordering.INDEX ? sweep(startTime) : processQueue(startTime);
+        this.propagator = null;
+        fractional = null;
+        sosNonZero = null;
+        binaries = null;
 
-        NumVariable[] toBeRounded = new NumVariable[integerSolutions.length];
-        boolean[] rounded = new boolean[toBeRounded.length];
-        //select solutions to be rounded
-        for (int i = 0; i < integerSolutions.length; i++) {
-            toBeRounded[i] = solutions[integerSolutions[i]];
-            toBeRounded[i].setType(NumVariable.VarType.REAL); //relaxing the variable
+        if (postsolve != null) {
+            //Back to the original model, the removed variables take their fixed values
+            x = postsolve.expand(x);
+            snapshot = original;
+            integerSolutions = originalIntegers != null ? originalIntegers : snapshot.getIntegerColumns();
+            activity = new double[snapshot.countRows()];
+            snapshot.computeRowActivities(x, activity);
+            objectiveOffset = 0;
         }
 
-        double ZI = 0;
-        double[] zis;
+        int fractionalCount = countFractional(x, integerSolutions, integralityTolerance);
+        if (fractionalCount == 0 && status != HeuristicResult.Status.INFEASIBLE && snapshot.findViolatedSOS(x, integralityTolerance) != -1) {
+            //The REAL members of a set aren't moved, the relaxed solution may have left too many of them non zero
+            status = HeuristicResult.Status.SOS_VIOLATED;
+        } else if (fractionalCount == 0 && status != HeuristicResult.Status.INFEASIBLE) {
+            //The algorithm has found a solution for the Mip problem
+            status = HeuristicResult.Status.SOLVED;
+            if (incumbent != null)
+                incumbent.offer(snapshot.getObjectiveValue(x), x.clone());
+            if (solutionPool != null)
+                solutionPool.offer(snapshot.getObjectiveValue(x), x);
+        } else if (status == null)
+            status = HeuristicResult.Status.STALLED;
+
+        solutions = snapshot.toNumVariables(x);
+        result = new HeuristicResult(status, solutions, x.clone(), fractionalCount, sweeps, shifts, System.nanoTime() - startTime);
+        if (solutionListener != null) {
+            if (result.isSolved())
+                solutionListener.onSuccess();
+            else
+                solutionListener.onFail();
+        }
+        return result;
+    }
 
-        double slacksLB = 0;
-        double slacksUB = 0;
+    /**
+     * Visits the INT variables in the order of {@code integerSolutions}, sweep after sweep, until a sweep makes no
+     * shift
+     *
+     * @return The reason why the run stopped, {@code null} if no more shifts can be found
+     */
+    private HeuristicResult.Status sweep(long startTime) throws IloException {
+        double[] zis = new double[integerSolutions.length];
         boolean noUpdates;
         do {
+            HeuristicResult.Status status = checkBudgets(startTime);
+            if (status != null)
+                return status;
+            sweeps++;
             noUpdates = true;
-            zis = getZis(toBeRounded);
+            ZiKernels.getInstance().zis(x, integerSolutions, zis, integralityTolerance);
             /**
-             * {@code noUpdates} bool remains true if isn't executed or if none of the inside block of code
+             * {@code noUpdates} bool remains true if none of the variables is shifted during the sweep
              */
             for (int i = 0; i < integerSolutions.length; i++) {
-                if (!rounded[i] && computeZI(toBeRounded[i]) != 0) {
-                    double UB = Math.min(toBeRounded[i].getUpBound() - toBeRounded[i].getValue(), getSlackUB(i));
-
-                    /// TODO: added to the original algorithm, to be verified
-                    UB = Math.min(UB, Math.ceil(toBeRounded[i].getValue()) - toBeRounded[i].getValue());
-                    ///
-
-                    double LB = Math.min(toBeRounded[i].getValue() - toBeRounded[i].getLowBound(), getSlackLB(i));
-
-                    /// TODO: added to the original algorithm, to be verified
-                    LB = Math.min(LB, toBeRounded[i].getValue() - Math.floor(toBeRounded[i].getValue()));
-                    ///
-
-                    //UB, LB, threshold available
-                    if (computeZI(toBeRounded[i].getValue() + UB) == computeZI(toBeRounded[i].getValue() - LB)
-                            && computeZI(toBeRounded[i].getValue() + UB) < zis[i]) {
-                        try {
-                            //Rounding based on the objective function
-                            if (model.getObjType() == Model.ObjType.MIN && model.getObjMultiplier(integerSolutions[i]) > 0
-                                    || model.getObjType() == Model.ObjType.MAX && model.getObjMultiplier(integerSolutions[i]) < 0)
-                                toBeRounded[i].setValue(toBeRounded[i].getValue() - LB);
-                            else
-                                toBeRounded[i].setValue(toBeRounded[i].getValue() + UB);
-                            noUpdates = noUpdates && false;
-                        } catch (InvalidAttributeValueException e) {
-                            //won't happen as long as the given problem was relaxed
-                        }
-                    } else if (computeZI(toBeRounded[i].getValue() + UB) < computeZI(toBeRounded[i].getValue() - LB)
-                            && computeZI(toBeRounded[i].getValue() + UB) < zis[i]) {
-                        try {
-                            toBeRounded[i].setValue(toBeRounded[i].getValue() + UB);
-                            noUpdates = noUpdates && false;
-                        } catch (InvalidAttributeValueException e) {
-                            //won't happen as long as the given problem was relaxed
-                        }
-                    } else if (computeZI(toBeRounded[i].getValue() - LB) < computeZI(toBeRounded[i].getValue() + UB)
-                            && computeZI(toBeRounded[i].getValue() - LB) < zis[i]) {
-                        try {
-                            toBeRounded[i].setValue(toBeRounded[i].getValue() - LB);
-                            noUpdates = noUpdates && false;
-                        } catch (InvalidAttributeValueException e) {
-                            //won't happen as long as the given problem was relaxed
-                        }
-                    } else noUpdates = noUpdates && true;
+                //The variables already rounded are skipped
+                int j = integerSolutions[i];
+                if (zis[i] != 0 && fractional.contains(j)) {
+                    if (moveTowardsInteger(j, zis[i]))
+                        noUpdates = false;
+                    status = afterMove(j);
+                    if (status != null)
+                        return status;
+                }
+            }
+        }
+        while (!noUpdates); //no updates can be found
+        return null;
+    }
+
+    /**
+     * Visits the INT variables by priority (see {@link Ordering}) using an {@link IndexedHeap}: a variable that moved
+     * but is still fractional gets its new key, a variable that can't move is parked until a shift changes one of
+     * its constraints
+     * <p>
+     * The budgets are checked every {@code integerSolutions.length} visits, which count as a sweep
+     *
+     * @return The reason why the run stopped, {@code null} if no more shifts can be found
+     */
+    private HeuristicResult.Status processQueue(long startTime) throws IloException {
+        int n = integerSolutions.length;
+        int[] position = new int[snapshot.countColumns()];
+        Arrays.fill(position, -1);
+        IndexedHeap heap = new IndexedHeap(n);
+        for (int i = 0; i < n; i++) {
+            position[integerSolutions[i]] = i;
+            double zi = zi(x[integerSolutions[i]]);
+            if (fractional.contains(integerSolutions[i]) && zi != 0)
+                enqueue(heap, i, integerSolutions[i], zi);
+        }
+        boolean[] parked = new boolean[n];
+        int[] colStart = snapshot.getColStart();
+        int[] colIndex = snapshot.getColIndex();
+        int[] rowStart = snapshot.getRowStart();
+        int[] rowIndex = snapshot.getRowIndex();
 
-                    if (computeZI(toBeRounded[i]) == 0) {
-                        rounded[i] = true;
+        int visits = 0;
+        while (!heap.isEmpty()) {
+            if (visits++ % n == 0) {
+                HeuristicResult.Status status = checkBudgets(startTime);
+                if (status != null)
+                    return status;
+                sweeps++;
+            }
+            int i = heap.poll();
+            int j = integerSolutions[i];
+            double zi = zi(x[j]);
+            if (zi == 0 || !moveTowardsInteger(j, zi)) {
+                parked[i] = zi != 0;
+            } else {
+                //The slacks of the neighbours changed, the parked ones get another chance
+                for (int k = colStart[j]; k < colStart[j + 1]; k++) {
+                    int row = colIndex[k];
+                    for (int p = rowStart[row]; p < rowStart[row + 1]; p++) {
+                        int neighbour = position[rowIndex[p]];
+                        if (neighbour != -1 && parked[neighbour]) {
+                            parked[neighbour] = false;
+                            enqueue(heap, neighbour, integerSolutions[neighbour], zi(x[rowIndex[p]]));
+                        }
                     }
                 }
+            }
+            HeuristicResult.Status status = afterMove(j);
+            if (status != null)
+                return status;
+            if (fractional.contains(j) && !parked[i])
+                enqueue(heap, i, j, zi(x[j]));
+        }
+        return null;
+    }
+
+    /**
+     * Inserts a variable in the heap, or updates its keys: lower keys are visited first
+     *
+     * @param i  Position of the variable in {@code integerSolutions}
+     * @param j  Index of the variable
+     * @param zi ZI of the variable
+     */
+    private void enqueue(IndexedHeap heap, int i, int j, double zi) {
+        if (ordering == Ordering.OBJECTIVE) {
+            //The variables that weigh more on the objective choose their direction while the slacks are larger
+            heap.update(i, -Math.abs(snapshot.getObjective()[j]), zi);
+        } else {
+            heap.update(i, zi);
+        }
+    }
+
+    /**
+     * @return The status that stops the run if a budget is exhausted, {@code null} otherwise
+     */
+    private HeuristicResult.Status checkBudgets(long startTime) {
+        //Budgets are checked between sweeps, so that the check costs nothing compared to a sweep
+        if (cancellationToken != null && cancellationToken.isCancelled())
+            return HeuristicResult.Status.CANCELLED;
+        if (limits.isTimeExceeded(System.nanoTime() - startTime))
+            return HeuristicResult.Status.TIME_LIMIT;
+        if (limits.isSweepLimitReached(sweeps))
+            return HeuristicResult.Status.SWEEP_LIMIT;
+        if (incumbent != null && !equalityExtension && !incumbent.canBeBeaten(objectiveBound()))
+            return HeuristicResult.Status.PRUNED;
+        return null;
+    }
+
+    /**
+     * Marks the variable as rounded if it became integer, fixing it in the propagator
+     *
+     * @param j Index of a variable to round
+     * @return The status that stops the run, {@code null} to go on
+     */
+    private HeuristicResult.Status afterMove(int j) throws IloException {
+        if (zi(x[j]) == 0) {
+            snap(j);
+            fractional.remove(j);
+            if (propagator != null && !propagator.fix(j, x[j]))
+                return HeuristicResult.Status.INFEASIBLE;
+        }
+        if (limits.isShiftLimitReached(shifts))
+            return HeuristicResult.Status.SHIFT_LIMIT;
+        return null;
+    }
+
+    /**
+     * Shifts a fractional variable towards an integer, as far as its bounds and the slacks of its constraints allow
+     *
+     * @param j  Index of a fractional INT variable
+     * @param zi ZI of the variable
+     * @return {@code True} if the variable (or a pair, with the equality extension) was shifted
+     */
+    private boolean moveTowardsInteger(int j, double zi) throws IloException {
+        if (binaries != null && binaries.contains(j)) {
+            double target = binaryTarget(j, zi);
+            if (target != -1) {
+                shift(j, target);
+                shifts++;
+                return true;
+            }
+        }
+        double value = x[j];
+        //The propagated bounds may cut off the current value, those moves aren't available
+        double UB = Math.max(Math.min(colUB[j] - value, getSlackUB(j)), 0);
+
+        /// TODO: added to the original algorithm, to be verified
+        UB = Math.min(UB, Math.ceil(value) - value);
+        ///
+
+        double LB = Math.max(Math.min(value - colLB[j], getSlackLB(j)), 0);
+
+        /// TODO: added to the original algorithm, to be verified
+        LB = Math.min(LB, value - Math.floor(value));
+        ///
+
+        //A member of a SOS set that has to be zero can only move towards zero
+        if (sosNonZero != null && !sosNonZero[j]) {
+            if (value >= 0)
+                UB = 0;
+            if (value <= 0)
+                LB = 0;
+        }
+
+        //Reaching the nearest integer is assigned exactly, value + UB may miss it by a rounding error
+        double up = UB == Math.ceil(value) - value ? Math.ceil(value) : value + UB;
+        double down = LB == value - Math.floor(value) ? Math.floor(value) : value - LB;
+
+        //UB, LB, threshold available
+        double target = value;
+        double ziUp = zi(up);
+        double ziDown = zi(down);
+        if (zi <= threshold) {
+            //Near integer values are snapped to the integer, if the slacks allow it
+            double nearest = Math.rint(value);
+            if (nearest == up || nearest == down)
+                target = nearest;
+        } else {
+            //ZI has to decrease by more than the threshold for a shift to be accepted
+            double acceptedZi = zi - threshold;
+            if (ziUp == ziDown && ziUp < acceptedZi) {
+                target = roundsDown(j) ? down : up;
+            } else if (ziUp < ziDown && ziUp < acceptedZi) {
+                target = up;
+            } else if (ziDown < ziUp && ziDown < acceptedZi) {
+                target = down;
+            }
+        }
+
+        if (target != value) {
+            shift(j, target);
+            shifts++;
+            return true;
+        } else if (equalityExtension && zi > threshold && pairedShift(j, zi - threshold)) {
+            shifts++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Binary fast path: checks the full moves to 0 and to 1 together, the same acceptance rules of
+     * {@link #moveTowardsInteger(int, double)} apply
+     *
+     * @param j  Index of a fractional INT variable with bounds [0, 1]
+     * @param zi ZI of the variable
+     * @return 0 or 1, -1 if neither can be reached and the general logic has to decide
+     */
+    private double binaryTarget(int j, double zi) {
+        double value = x[j];
+        boolean canUp = colUB[j] >= 1 && sosPermits(j, 1);
+        boolean canDown = colLB[j] <= 0;
+        //A direction without locks can't violate any constraint
+        if (canUp && snapshot.getUpLocks()[j] != 0 || canDown && snapshot.getDownLocks()[j] != 0) {
+            int[] colStart = snapshot.getColStart();
+            int[] colIndex = snapshot.getColIndex();
+            double[] colValue = snapshot.getColValue();
+            double[] rowLB = snapshot.getRowLB();
+            double[] rowUB = snapshot.getRowUB();
+            double up = 1 - value;
+            for (int k = colStart[j]; k < colStart[j + 1]; k++) {
+                int i = colIndex[k];
+                double a = colValue[k];
+                double toUB = (rowUB[i] - activity[i]) / Math.abs(a);
+                double toLB = (activity[i] - rowLB[i]) / Math.abs(a);
+                canUp &= (a > 0 ? toUB : toLB) >= up;
+                canDown &= (a > 0 ? toLB : toUB) >= value;
+            }
+        }
+        if (zi <= threshold) {
+            //Near integer values are snapped to the integer
+            if (Math.rint(value) == 1)
+                return canUp ? 1 : -1;
+            return canDown ? 0 : -1;
+        }
+        if (canUp && canDown)
+            return roundsDown(j) ? 0 : 1;
+        return canUp ? 1 : canDown ? 0 : -1;
+    }
+
+    /**
+     * Tie break when both directions are available: the objective function decides, the locks decide if the
+     * objective doesn't
+     *
+     * @return {@code True} if xj should be rounded down
+     */
+    private boolean roundsDown(int j) {
+        if (snapshot.getObjective()[j] == 0)
+            return snapshot.getDownLocks()[j] < snapshot.getUpLocks()[j];
+        return prefersDown(j);
+    }
+
+    /**
+     * First pass of {@link #setLockRounding(boolean)}: a fractional variable that no constraint locks in a direction
+     * is rounded that way, in O(1) and without computing any slack
+     *
+     * @return {@link HeuristicResult.Status#SHIFT_LIMIT} if the shift budget runs out, {@code null} otherwise
+     */
+    private HeuristicResult.Status roundLockFree() {
+        int[] upLocks = snapshot.getUpLocks();
+        int[] downLocks = snapshot.getDownLocks();
+        for (int j : integerSolutions) {
+            double value = x[j];
+            if (zi(value) == 0 || upLocks[j] != 0 && downLocks[j] != 0)
+                continue;
+            boolean canGoDown = downLocks[j] == 0 && Math.floor(value) >= colLB[j] && sosPermits(j, Math.floor(value));
+            boolean canGoUp = upLocks[j] == 0 && Math.ceil(value) <= colUB[j] && sosPermits(j, Math.ceil(value));
+            if (canGoDown && (!canGoUp || prefersDown(j)))
+                shift(j, Math.floor(value));
+            else if (canGoUp)
+                shift(j, Math.ceil(value));
+            else
+                continue;
+            shifts++;
+            if (limits.isShiftLimitReached(shifts))
+                return HeuristicResult.Status.SHIFT_LIMIT;
+        }
+        return null;
+    }
+
+    /**
+     * @return {@code True} if decreasing xj improves the objective function
+     */
+    private boolean prefersDown(int j) {
+        double objMultiplier = snapshot.getObjective()[j];
+        return snapshot.getObjType() == Model.ObjType.MIN && objMultiplier > 0
+                || snapshot.getObjType() == Model.ObjType.MAX && objMultiplier < 0;
+    }
+
+    /**
+     * Chooses the members of each SOS set that may be non zero: the one with the largest absolute value in a SOS1
+     * set, the consecutive pair with the largest sum of absolute values in a SOS2 set. A variable in more sets has to
+     * be chosen by all of them
+     *
+     * @return {@code false} for the members that have to become zero
+     */
+    private boolean[] chooseSOSNonZeros() {
+        boolean[] nonZero = new boolean[snapshot.countColumns()];
+        Arrays.fill(nonZero, true);
+        int[] sosType = snapshot.getSOSType();
+        int[] sosStart = snapshot.getSOSStart();
+        int[] sosIndex = snapshot.getSOSIndex();
+        for (int s = 0; s < sosType.length; s++) {
+            int best = sosStart[s];
+            double bestWeight = -1;
+            for (int k = sosStart[s]; k + sosType[s] <= sosStart[s + 1] || k == sosStart[s]; k++) {
+                double weight = 0;
+                for (int p = k; p < Math.min(k + sosType[s], sosStart[s + 1]); p++)
+                    weight += Math.abs(x[sosIndex[p]]);
+                if (weight > bestWeight) {
+                    bestWeight = weight;
+                    best = k;
+                }
+            }
+            for (int k = sosStart[s]; k < sosStart[s + 1]; k++)
+                if (k < best || k >= best + sosType[s])
+                    nonZero[sosIndex[k]] = false;
+        }
+        return nonZero;
+    }
+
+    /**
+     * @param j      Index of a variable
+     * @param target A new value of the variable
+     * @return {@code True} if the SOS sets of the variable allow the move
+     */
+    private boolean sosPermits(int j, double target) {
+        double value = x[j];
+        return sosNonZero == null || sosNonZero[j] || target == 0
+                || Math.abs(target) <= Math.abs(value) && target * value >= 0;
+    }
 
+    /**
+     * Fixes the variables that are integral in the relaxed solution and propagates their bounds
+     *
+     * @return {@code False} if the propagation proved the model infeasible
+     */
+    private boolean propagateRounded(BoundPropagator propagator) {
+        if (!propagator.propagate())
+            return false;
+        for (int j : integerSolutions) {
+            if (zi(x[j]) == 0) {
+                fractional.remove(j);
+                if (!propagator.fix(j, x[j]))
+                    return false;
             }
+        }
+        return true;
+    }
 
+    /**
+     * Only the INT variables to round can still move, each one at most to its floor or its ceiling
+     *
+     * @return The best objective value that rounding the remaining fractional variables could reach
+     */
+    private double objectiveBound() {
+        double[] objective = snapshot.getObjective();
+        double bound = snapshot.getObjectiveValue(x) + objectiveOffset;
+        for (int j : integerSolutions) {
+            if (zi(x[j]) != 0) {
+                double down = objective[j] * (Math.floor(x[j]) - x[j]);
+                double up = objective[j] * (Math.ceil(x[j]) - x[j]);
+                bound += snapshot.getObjType() == Model.ObjType.MIN ? Math.min(down, up) : Math.max(down, up);
+            }
+        }
+        return bound;
+    }
 
-/**
- slacksLB = 0;
- slacksUB = 0;
- //Computing the exit condition
- for (int i = 0; i < model.countNumVariables(); i++) {
- slacksLB += getSlackLB(i);
- slacksUB += getSlackUB(i);
- }
- //slacks stay 0 if all variables were rounded
- */
+    /**
+     * Loads the working solution and the activity of every constraint
+     *
+     * @param numSolutions A value for each variable of the snapshot
+     */
+    private void initState(double[] numSolutions) {
+        double[] colLB = snapshot.getColLB();
+        double[] colUB = snapshot.getColUB();
+        x = new double[snapshot.countColumns()];
+        for (int j = 0; j < x.length; j++) {
+            //The solver can return values out of the bounds by its feasibility tolerance
+            x[j] = Math.max(colLB[j], Math.min(colUB[j], numSolutions[j]));
         }
-        while (!noUpdates); //no updates can be found
+        activity = new double[snapshot.countRows()];
+        snapshot.computeRowActivities(x, activity);
+    }
 
-        if (sumZis(getZis(toBeRounded)) == 0) {
-            //The algorithm has found a solution for the Mip problem
-            for (NumVariable var : toBeRounded) {
-                var.setType(NumVariable.VarType.INT);
+    /**
+     * Moves a variable to a new value, updating the activities of the constraints it appears in
+     *
+     * @param j     Index of a variable in the model
+     * @param value The new value of the variable
+     */
+    private void shift(int j, double value) {
+        double delta = value - x[j];
+        int[] colStart = snapshot.getColStart();
+        int[] colIndex = snapshot.getColIndex();
+        double[] colValue = snapshot.getColValue();
+        for (int k = colStart[j]; k < colStart[j + 1]; k++)
+            activity[colIndex[k]] += colValue[k] * delta;
+        x[j] = value;
+    }
+
+    /**
+     * Moves a variable that is integer within the tolerance exactly on the integer, so that the final solution
+     * doesn't carry the rounding errors of the LP. The move is made only if the slacks of the rows allow it, like
+     * any other shift
+     *
+     * @param j Index of an INT variable
+     */
+    private void snap(int j) throws IloException {
+        double nearest = Math.rint(x[j]);
+        if (x[j] == nearest || zi(x[j]) != 0)
+            return;
+        double delta = Math.max(colLB[j], Math.min(colUB[j], nearest)) - x[j];
+        if (delta > 0 && delta <= getSlackUB(j) || delta < 0 && -delta <= getSlackLB(j))
+            shift(j, x[j] + delta);
+    }
+
+    /**
+     * Extended ZI Round: looks for a REAL variable k such that moving xj by d and xk by r * d leaves every
+     * = constraint of both variables unchanged, then moves the pair as far as the other constraints and the bounds
+     * allow, without going past the nearest integers of xj
+     *
+     * @param j          Index of a fractional INT variable that appears in at least one = constraint
+     * @param acceptedZi A shift is accepted only if ZI(xj) becomes lower than this
+     * @return {@code True} if a pair was shifted and ZI(xj) decreased enough
+     */
+    private boolean pairedShift(int j, double acceptedZi) {
+        int[] colStart = snapshot.getColStart();
+        int[] colIndex = snapshot.getColIndex();
+        double[] colValue = snapshot.getColValue();
+        double[] rowLB = snapshot.getRowLB();
+        double[] rowUB = snapshot.getRowUB();
+
+        //The first = constraint of xj provides the candidates and the ratio of the shift
+        int first = -1;
+        double firstValue = 0;
+        for (int k = colStart[j]; k < colStart[j + 1] && first == -1; k++) {
+            if (rowLB[colIndex[k]] == rowUB[colIndex[k]]) {
+                first = colIndex[k];
+                firstValue = colValue[k];
+            }
+        }
+        if (first == -1)
+            return false;
+
+        double value = x[j];
+        double bestZi = acceptedZi;
+        int bestPartner = -1;
+        double bestDelta = 0;
+        double bestRatio = 0;
+        int[] rowStart = snapshot.getRowStart();
+        int[] rowIndex = snapshot.getRowIndex();
+        double[] rowValue = snapshot.getRowValue();
+        for (int p = rowStart[first]; p < rowStart[first + 1]; p++) {
+            int k = rowIndex[p];
+            if (k == j || snapshot.isInteger(k))
+                continue;
+            double ratio = -firstValue / rowValue[p];
+            double[] range = pairRange(j, k, ratio);
+            if (range == null)
+                continue;
+
+            double up = Math.min(range[0], Math.ceil(value) - value);
+            double down = Math.min(range[1], value - Math.floor(value));
+            double upZi = up == Math.ceil(value) - value ? 0 : zi(value + up);
+            double downZi = down == value - Math.floor(value) ? 0 : zi(value - down);
+
+            double delta;
+            if (upZi == downZi) {
+                //Rounding based on the objective function, the partner moves too
+                double objMultiplier = snapshot.getObjective()[j] + ratio * snapshot.getObjective()[k];
+                if (snapshot.getObjType() == Model.ObjType.MIN && objMultiplier > 0
+                        || snapshot.getObjType() == Model.ObjType.MAX && objMultiplier < 0)
+                    delta = -down;
+                else
+                    delta = up;
+            } else
+                delta = upZi < downZi ? up : -down;
+            if (!sosPermits(j, value + delta) || !sosPermits(k, x[k] + ratio * delta))
+                continue;
+
+            double newZi = Math.min(upZi, downZi);
+            if (delta != 0 && newZi < bestZi) {
+                bestZi = newZi;
+                bestPartner = k;
+                bestDelta = delta;
+                bestRatio = ratio;
+                if (newZi == 0)
+                    break;
             }
         }
+        if (bestPartner == -1)
+            return false;
 
+        double target = bestZi == 0 ? Math.rint(value + bestDelta) : value + bestDelta;
+        double partnerTarget = x[bestPartner] + bestRatio * (target - value);
+        shift(j, target);
+        shift(bestPartner, Math.max(colLB[bestPartner], Math.min(colUB[bestPartner], partnerTarget)));
+        return true;
+    }
+
+    /**
+     * Walks the columns of xj and xk together (both are sorted by row) to find how far the direction
+     * (xj + d, xk + ratio * d) can go
+     *
+     * @param j     Index of the INT variable
+     * @param k     Index of the REAL partner
+     * @param ratio Movement of xk for a unit movement of xj
+     * @return {max increase of xj, max decrease of xj}, {@code null} if the pair changes an = constraint
+     */
+    private double[] pairRange(int j, int k, double ratio) {
+        int[] colStart = snapshot.getColStart();
+        int[] colIndex = snapshot.getColIndex();
+        double[] colValue = snapshot.getColValue();
+        double[] rowLB = snapshot.getRowLB();
+        double[] rowUB = snapshot.getRowUB();
+
+        double up = colUB[j] - x[j];
+        double down = x[j] - colLB[j];
+        //Bounds of the partner
+        if (ratio > 0) {
+            up = Math.min(up, (colUB[k] - x[k]) / ratio);
+            down = Math.min(down, (x[k] - colLB[k]) / ratio);
+        } else {
+            up = Math.min(up, (x[k] - colLB[k]) / -ratio);
+            down = Math.min(down, (colUB[k] - x[k]) / -ratio);
+        }
+
+        int pj = colStart[j];
+        int pk = colStart[k];
+        while (pj < colStart[j + 1] || pk < colStart[k + 1]) {
+            int rowJ = pj < colStart[j + 1] ? colIndex[pj] : Integer.MAX_VALUE;
+            int rowK = pk < colStart[k + 1] ? colIndex[pk] : Integer.MAX_VALUE;
+            int i = Math.min(rowJ, rowK);
+            double coefficient = 0;
+            if (rowJ == i)
+                coefficient += colValue[pj++];
+            if (rowK == i)
+                coefficient += ratio * colValue[pk++];
+
+            if (rowLB[i] == rowUB[i]) {
+                //Relative tolerance, the ratio comes from a division
+                if (Math.abs(coefficient) > PAIR_TOLERANCE * (1 + Math.abs(ratio)))
+                    return null;
+            } else if (coefficient > 0) {
+                up = Math.min(up, (rowUB[i] - activity[i]) / coefficient);
+                down = Math.min(down, (activity[i] - rowLB[i]) / coefficient);
+            } else if (coefficient < 0) {
+                up = Math.min(up, (activity[i] - rowLB[i]) / -coefficient);
+                down = Math.min(down, (rowUB[i] - activity[i]) / -coefficient);
+            }
+        }
+        return new double[]{Math.max(up, 0), Math.max(down, 0)};
+    }
+
+    /**
+     * @return The outcome of the last call to {@link #applyHeuristic()}, {@code null} if it was never called
+     */
+    public HeuristicResult getResult() {
+        return result;
     }
 
     public NumVariable[] Solutions() {
@@ -161,39 +931,68 @@ public class ZiRound // implements Heuristic
     }
 
     /**
+     * Computed on the current working solution, the activities are loaded on the first call if no run was made yet
+     *
      * @param j Index of a variable in the model
-     * @return The ub of xj = min(i) {si/aij: aij > 0}, 0 if there's no aij > 0
+     * @return The ub of xj = min(i) {si/aij: aij > 0} (always >= 0), +infinity if no constraint limits its increase
      */
     public double getSlackUB(int j) throws IloException {
-        double min = -1;
+        ensureState();
+        int[] colStart = snapshot.getColStart();
+        int[] colIndex = snapshot.getColIndex();
+        double[] colValue = snapshot.getColValue();
+        double min = Double.POSITIVE_INFINITY;
         //The slacks are always >= 0 if the constraints are satisfied
-        for (int i = 0; i < model.countConstraints(); i++) {
-            if (model.getConstraintsMultiplier(i, j) > 0) {
-                if (min == -1)
-                    min = model.getConstraintSlack(i) / model.getConstraintsMultiplier(i, j);
-                if (model.getConstraintSlack(i) / model.getConstraintsMultiplier(i, j) < min)
-                    min = model.getConstraintSlack(i) / model.getConstraintsMultiplier(i, j);
-            }
+        for (int k = colStart[j]; k < colStart[j + 1]; k++) {
+            int i = colIndex[k];
+            double slack;
+            if (colValue[k] > 0)
+                slack = (snapshot.getRowUB()[i] - activity[i]) / colValue[k];
+            else
+                slack = (activity[i] - snapshot.getRowLB()[i]) / -colValue[k];
+            if (slack < min)
+                min = slack;
         }
-        return (min == -1 ? 0 : min);
+        return Math.max(min, 0);
     }
 
     /**
+     * Computed on the current working solution, the activities are loaded on the first call if no run was made yet
+     *
      * @param j Index of a variable in the model
-     * @return The lb of xj = min(i) {-si/aij: aij < 0}, 0 if there's no aij < 0
+     * @return The lb of xj = min(i) {-si/aij: aij < 0} (always >= 0), +infinity if no constraint limits its decrease
      */
     public double getSlackLB(int j) throws IloException {
-        double min = -1;
+        ensureState();
+        int[] colStart = snapshot.getColStart();
+        int[] colIndex = snapshot.getColIndex();
+        double[] colValue = snapshot.getColValue();
+        double min = Double.POSITIVE_INFINITY;
         //The slacks are always >= 0 if the constraints are satisfied
-        for (int i = 0; i < model.countConstraints(); i++) {
-            if (model.getConstraintsMultiplier(i, j) < 0) {
-                if (min == -1)
-                    min = -model.getConstraintSlack(i) / model.getConstraintsMultiplier(i, j);
-                if (-model.getConstraintSlack(i) / model.getConstraintsMultiplier(i, j) < min)
-                    min = -model.getConstraintSlack(i) / model.getConstraintsMultiplier(i, j);
-            }
+        for (int k = colStart[j]; k < colStart[j + 1]; k++) {
+            int i = colIndex[k];
+            double slack;
+            if (colValue[k] > 0)
+                slack = (activity[i] - snapshot.getRowLB()[i]) / colValue[k];
+            else
+                slack = (snapshot.getRowUB()[i] - activity[i]) / -colValue[k];
+            if (slack < min)
+                min = slack;
+        }
+        return Math.max(min, 0);
+    }
+
+    /**
+     * Loads the working state from the last solutions of the model, if no run did it yet
+     */
+    private void ensureState() throws IloException {
+        if (x == null) {
+            if (model != null) {
+                snapshot = model.snapshot();
+                initState(model.getCurrentSolutions());
+            } else
+                initState(relaxedSolutions);
         }
-        return (min == -1 ? 0 : min);
     }
 
     public static double[] getZis(NumVariable[] vars) {
@@ -205,14 +1004,41 @@ public class ZiRound // implements Heuristic
     }
 
     /**
-     * @param zis
-     * @return
+     * @param values A value for each variable
+     * @param index  Indexes of the variables to read
+     * @return ZI(values[index[k]]) at position k
+     */
+    public static double[] getZis(double[] values, int[] index) {
+        double[] zis = new double[index.length];
+        ZiKernels.getInstance().zis(values, index, zis, NumVariable.getIntegralityTolerance());
+        return zis;
+    }
+
+    /**
+     * @param values A value for each variable
+     * @param index  Indexes of the variables to read
+     * @return How many of the indexed values are not integer, within the default integrality tolerance
+     */
+    public static int countFractional(double[] values, int[] index) {
+        return countFractional(values, index, NumVariable.getIntegralityTolerance());
+    }
+
+    /**
+     * @param values    A value for each variable
+     * @param index     Indexes of the variables to read
+     * @param tolerance Integrality tolerance
+     * @return How many of the indexed values are not integer
+     */
+    public static int countFractional(double[] values, int[] index, double tolerance) {
+        return ZiKernels.getInstance().countFractional(values, index, tolerance);
+    }
+
+    /**
+     * @param zis ZI values, as returned by {@link #getZis(NumVariable[])}
+     * @return The total ZI, 0 only if every value is integer
      */
     public static double sumZis(double[] zis) {
-        double ZI = 0;
-        for (double zi : zis)
-            ZI += zi;
-        return ZI;
+        return ZiKernels.getInstance().sum(zis);
     }
 
     /**
@@ -225,14 +1051,50 @@ public class ZiRound // implements Heuristic
 
     /**
      * @param value A numerical variable's value
-     * @return ZI(value) (always >= 0)
+     * @return ZI(value) (always >= 0), 0 if the value is within {@link NumVariable#getIntegralityTolerance()} of an
+     * integer
      */
     public static double computeZI(double value) {
-        return Math.min(value - Math.floor(value), Math.ceil(value) - value);
+        return computeZI(value, NumVariable.getIntegralityTolerance());
+    }
+
+    /**
+     * @param value     A numerical variable's value
+     * @param tolerance Integrality tolerance
+     * @return ZI(value) (always >= 0), 0 if the value is within the tolerance of an integer
+     */
+    public static double computeZI(double value, double tolerance) {
+        double zi = Math.min(value - Math.floor(value), Math.ceil(value) - value);
+        return zi <= tolerance ? 0 : zi;
     }
 
-    //    @Override
+    /**
+     * @return ZI(value) with the integrality tolerance of this run
+     */
+    private double zi(double value) {
+        return computeZI(value, integralityTolerance);
+    }
+
+    @Override
     public void setHeuristicListener(HeuristicListener listener) {
         solutionListener = listener;
     }
+
+    /**
+     * Order in which the INT variables are visited
+     */
+    public enum Ordering {
+        /**
+         * Sweeps over the variables in index order, the original algorithm
+         */
+        INDEX,
+        /**
+         * The least fractional variables first, they need the smallest shifts
+         */
+        FRACTIONALITY,
+        /**
+         * The variables with the largest objective multiplier first, then by fractionality
+         */
+        OBJECTIVE
+    }
 }
@@ -0,0 +1,120 @@
+package heuristics.ziround;
+
+import ilog.concert.IloException;
+import ilog.concert.IloNumVar;
+import ilog.cplex.IloCplex;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Runs {@link ZiRound} inside the CPLEX branch and bound: at the selected nodes the node LP solution is rounded on
+ * the {@link ModelSnapshot} of the model, and a feasible rounding that improves the incumbent is handed to CPLEX.
+ * <p>
+ * Usage: {@code cplex.use(new ZiRoundCallback(model, threshold))} before {@code cplex.solve()}
+ * <p>
+ * The callback may be invoked by several CPLEX threads at the same time, the counters are atomic and every run
+ * uses its own {@link ZiRound}. When to run and what to inject is decided by a {@link CallbackPolicy}
+ */
+public class ZiRoundCallback extends IloCplex.HeuristicCallback {
+    public static final long DEFAULT_NODE_FREQUENCY = CallbackPolicy.DEFAULT_NODE_FREQUENCY;
+
+    private final ModelSnapshot snapshot;
+    private final IloNumVar[] variables;
+    private final double threshold;
+    private final CallbackPolicy policy;
+    private Consumer<ZiRound> configurator;
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong injected = new AtomicLong();
+
+    /**
+     * @param model     The model solved by CPLEX, its snapshot is read once here
+     * @param threshold threshold param for the ZiRound algorithm
+     */
+    public ZiRoundCallback(@NotNull Model model, double threshold) throws IloException {
+        this.snapshot = model.snapshot();
+        this.variables = model.getNumVars();
+        this.threshold = threshold;
+        this.policy = new CallbackPolicy(snapshot.getObjType());
+    }
+
+    /**
+     * @param nodeFrequency ZiRound runs at one node every {@code nodeFrequency}, the root included
+     */
+    public void setNodeFrequency(long nodeFrequency) {
+        policy.setNodeFrequency(nodeFrequency);
+    }
+
+    /**
+     * @param runTimeLimitMillis   Time limit of each run, <= 0 for no limit
+     * @param totalTimeLimitMillis Once the runs took this much time in total the callback does nothing, <= 0 for no
+     *                             limit
+     */
+    public void setTimeLimits(long runTimeLimitMillis, long totalTimeLimitMillis) {
+        policy.setTimeLimits(runTimeLimitMillis, totalTimeLimitMillis);
+    }
+
+    /**
+     * @param configurator Applies the settings of the runs (extensions, ordering...), can be {@code null}. The time
+     *                     limit is set by the callback
+     */
+    public void setConfigurator(Consumer<ZiRound> configurator) {
+        this.configurator = configurator;
+    }
+
+    @Override
+    protected void main() throws IloException {
+        if (!policy.shouldRun(getNnodes64()))
+            return;
+
+        long startTime = System.nanoTime();
+        try {
+            ZiRound ziRound = new ZiRound(snapshot, getValues(variables), threshold);
+            if (configurator != null)
+                configurator.accept(ziRound);
+            ziRound.setLimits(policy.getRunLimits());
+            HeuristicResult result = ziRound.applyHeuristic();
+            runs.incrementAndGet();
+            if (!result.isSolved())
+                return;
+
+            //The rounding is within the global bounds, so it's feasible for the whole tree and not only this node
+            double objective = snapshot.getObjectiveValue(result.getValues());
+            boolean hasIncumbent = hasIncumbent();
+            if (!policy.shouldInject(objective, hasIncumbent, hasIncumbent ? getIncumbentObjValue() : 0))
+                return;
+            setSolution(variables, result.getValues(), objective);
+            injected.incrementAndGet();
+        } catch (IloException e) {
+            throw e;
+        } catch (Exception e) {
+            e.printStackTrace();
+            //A failed rounding must not stop the branch and bound
+        } finally {
+            policy.addElapsedNanos(System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * @return Number of nodes at which ZiRound ran
+     */
+    public long getRuns() {
+        return runs.get();
+    }
+
+    /**
+     * @return Number of solutions handed to CPLEX
+     */
+    public long getInjected() {
+        return injected.get();
+    }
+
+    /**
+     * @return Total time spent in the runs
+     */
+    public long getElapsedNanos() {
+        return policy.getElapsedNanos();
+    }
+}
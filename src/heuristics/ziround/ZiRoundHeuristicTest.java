@@ -2,7 +2,8 @@ package heuristics.ziround;
 
 import heuristics.test.CplexUtilsTest;
 import ilog.concert.IloException;
-import ilog.cplex.IloCplex;
+import org.junit.After;
+import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -21,6 +22,10 @@ public class ZiRoundHeuristicTest {
     private static final int MAX_MODELS = 10;
     public static int executionCount = 0;
     public static final double DELTA = 0.01;
+    /**
+     * One environment at a time: each model is closed after its test
+     */
+    private static final CplexPool POOL = new CplexPool(1);
 
     @Parameterized.Parameters
     public static Collection<Object[]> data() throws NumVariable.ValueOutOfBoundsException, InvalidAttributeValueException {
@@ -29,18 +34,8 @@ public class ZiRoundHeuristicTest {
 
         for (int j = 0; j < mipModels.length && j < MAX_MODELS; j++) {
             for (Object content : mipModels)
-                if (content instanceof String) {
-                    IloCplex instance;
-                    try {
-                        instance = new IloCplex();
-                        instance.importModel((String) content);
-
-                        models.add(new Object[]{instance});
-
-                    } catch (IloException e) {
-                        e.printStackTrace();
-                    }
-                }
+                if (content instanceof String)
+                    models.add(new Object[]{content});
         }
         return models;
     }
@@ -55,8 +50,8 @@ public class ZiRoundHeuristicTest {
 
     private int[] integerConstraints;
 
-    public ZiRoundHeuristicTest(IloCplex cplexTestModel) throws IloException {
-        testModel = new Model(cplexTestModel);
+    public ZiRoundHeuristicTest(String fileName) throws IloException, InterruptedException {
+        testModel = Model.fromFile(POOL, fileName);
         this.numSolutions = testModel.getSolutions();
         integerConstraints = testModel.getIntegerConstraints();
 
@@ -69,6 +64,16 @@ public class ZiRoundHeuristicTest {
         ziRoundHeuristic.setIntegerSolutions(integerConstraints);
     }
 
+    @After
+    public void tearDown() {
+        testModel.close();
+    }
+
+    @AfterClass
+    public static void closePool() {
+        POOL.close();
+    }
+
     @Test
     public void RunAlgorithm() throws IloException {
         if (executionCount++ == 1) {
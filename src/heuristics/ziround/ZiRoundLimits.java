@@ -0,0 +1,65 @@
+package heuristics.ziround;
+
+/**
+ * Work budgets for a single {@link ZiRound} run: wall clock time, number of sweeps over the integer variables
+ * and number of accepted shifts.
+ * <p>
+ * A value {@code <= 0} means that the corresponding budget is unbounded.
+ */
+public class ZiRoundLimits {
+    /**
+     * Limits that never stop a run, this is the behaviour of {@link ZiRound} when no limits are given
+     */
+    public static final ZiRoundLimits UNLIMITED = new ZiRoundLimits(0, 0, 0);
+
+    private final long timeLimitMillis;
+    private final int maxSweeps;
+    private final long maxShifts;
+
+    /**
+     * @param timeLimitMillis Wall clock budget in milliseconds, {@code <= 0} for no limit
+     * @param maxSweeps       Maximum number of sweeps over the integer variables, {@code <= 0} for no limit
+     * @param maxShifts       Maximum number of accepted shifts, {@code <= 0} for no limit
+     */
+    public ZiRoundLimits(long timeLimitMillis, int maxSweeps, long maxShifts) {
+        this.timeLimitMillis = timeLimitMillis;
+        this.maxSweeps = maxSweeps;
+        this.maxShifts = maxShifts;
+    }
+
+    public long getTimeLimitMillis() {
+        return timeLimitMillis;
+    }
+
+    public int getMaxSweeps() {
+        return maxSweeps;
+    }
+
+    public long getMaxShifts() {
+        return maxShifts;
+    }
+
+    /**
+     * @param elapsedNanos Time elapsed since the start of the run
+     * @return {@code True} if the time budget is exhausted
+     */
+    public boolean isTimeExceeded(long elapsedNanos) {
+        return timeLimitMillis > 0 && elapsedNanos >= timeLimitMillis * 1_000_000L;
+    }
+
+    /**
+     * @param sweeps Sweeps completed so far
+     * @return {@code True} if the sweep budget is exhausted
+     */
+    public boolean isSweepLimitReached(int sweeps) {
+        return maxSweeps > 0 && sweeps >= maxSweeps;
+    }
+
+    /**
+     * @param shifts Shifts accepted so far
+     * @return {@code True} if the shift budget is exhausted
+     */
+    public boolean isShiftLimitReached(long shifts) {
+        return maxShifts > 0 && shifts >= maxShifts;
+    }
+}